@@ -0,0 +1,149 @@
+package JavaSongLibraryApp.bench;
+
+import JavaSongLibraryApp.model.Song;
+import JavaSongLibraryApp.model.SongLibrary;
+import JavaSongLibraryApp.persistence.LibraryStorage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark suite for SongLibrary, Song and LibraryStorage, run through Harness.
+ * Run from the IDE or with:
+ *
+ * <pre>
+ * java JavaSongLibraryApp.bench.BenchmarkSuite [-size 10000,100000] [-w 3] [-i 5] [-ms 250]
+ *      [-filter regex] [-rf json|csv] [-o results.json]
+ * </pre>
+ *
+ * Keep one results file per version and diff them, or load them into any tool that reads
+ * JMH's JSON output. Every case works on the same seeded random library per size.
+ */
+public class BenchmarkSuite {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = Harness.options(args);
+        int[] sizes = Arrays.stream(opts.getOrDefault("size", "10000,100000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        Harness h = Harness.fromArgs(opts);
+
+        System.out.printf("%-34s %10s %16s   %-12s%n", "benchmark", "size", "score", "error");
+        for (int n : sizes) {
+            List<Song> songs = SongLibraryBenchmark.randomSongs(n, new Random(42));
+            library(h, n, songs);
+            song(h, n, songs);
+            storage(h, n, songs);
+        }
+
+        String out = opts.get("o");
+        if (out != null) h.write(Path.of(out), opts.getOrDefault("rf", "json"));
+    }
+
+    private static void library(Harness h, int n, List<Song> songs) throws Exception {
+        SongLibrary lib = new SongLibrary();
+        for (Song s : songs) lib.add(s);
+        Song probe = new Song("Benchmark probe", "Nobody", 2000, 3);
+
+        h.run("SongLibrary.build", n, () -> () -> {
+            SongLibrary fresh = new SongLibrary();
+            for (Song s : songs) fresh.add(s);
+            return fresh.size();
+        });
+        h.run("SongLibrary.addRemove", n, () -> () -> {
+            lib.add(probe);
+            return lib.remove(probe);
+        });
+
+        // Each view straight after a change, so the index has to hand out a fresh list
+        view(h, n, "SongLibrary.sortedByTitle", lib, probe, lib::sortedByTitle);
+        view(h, n, "SongLibrary.sortedByArtist", lib, probe, lib::sortedByArtist);
+        view(h, n, "SongLibrary.sortedByYearDesc", lib, probe, lib::sortedByYearDesc);
+        view(h, n, "SongLibrary.sortedByRatingDesc", lib, probe, lib::sortedByRatingDesc);
+        h.run("SongLibrary.sortedByTitle.cached", n, () -> lib::sortedByTitle);
+
+        h.run("SongLibrary.search.short", n, () -> () -> lib.search("ar", SongLibrary.BY_TITLE).size());
+        h.run("SongLibrary.search.selective", n, () -> () -> lib.search("k 1a", SongLibrary.BY_TITLE).size());
+        h.run("SongLibrary.filtered", n, () -> () -> lib.filtered(SongLibrary.containing("k 1a")).size());
+
+        // "Top 50 highest rated songs from the 90s": an index walk, then a bounded heap, then a full sort
+        Predicate<Song> nineties = s -> s.getYear() >= 1990 && s.getYear() < 2000;
+        Comparator<Song> byRating = Comparator.comparingInt(Song::getRating).reversed()
+                .thenComparing(Song::getTitle, String.CASE_INSENSITIVE_ORDER);
+        h.run("SongLibrary.top50.indexed", n, () -> () -> lib.top(50, SongLibrary.BY_RATING_DESC, nineties).size());
+        h.run("SongLibrary.top50.heap", n, () -> () -> lib.top(50, byRating, nineties).size());
+        h.run("SongLibrary.top50.fullSort", n, () -> () -> lib.all().stream().filter(nineties)
+                .sorted(byRating).limit(50).count());
+        h.run("SongLibrary.page.heap", n, () -> () -> lib.page(1000, 50, byRating, s -> true).size());
+    }
+
+    private static void view(Harness h, int n, String name, SongLibrary lib, Song probe,
+                             Supplier<List<Song>> view) throws Exception {
+        h.run(name, n, () -> () -> {
+            lib.add(probe);
+            lib.remove(probe);
+            return view.get().size();
+        });
+    }
+
+    private static void song(Harness h, int n, List<Song> songs) throws Exception {
+        h.run("Song.hashSetDedupe", n, () -> () -> new HashSet<>(songs).size());
+        // Song caches its hash, so hashing the same instances again only reads the cache
+        // (hashCodeCached). The fold itself needs fresh instances every time: newCopies builds
+        // them alone, hashCodeEquals builds and compares them, and the difference is the fold.
+        String[] upper = new String[songs.size()];
+        for (int i = 0; i < upper.length; i++) upper[i] = songs.get(i).getTitle().toUpperCase();
+        h.run("Song.hashCodeCached", n, () -> {
+            Song[] copies = copies(songs, upper);
+            return () -> matches(copies, songs);
+        });
+        h.run("Song.newCopies", n, () -> () -> copies(songs, upper).length);
+        h.run("Song.hashCodeEquals", n, () -> () -> matches(copies(songs, upper), songs));
+    }
+
+    /** New songs equal to the given ones, each with its title in the given case. */
+    private static Song[] copies(List<Song> songs, String[] titles) {
+        Song[] copies = new Song[songs.size()];
+        for (int i = 0; i < copies.length; i++) {
+            Song s = songs.get(i);
+            copies[i] = new Song(titles[i], s.getArtist(), s.getYear(), s.getRating());
+        }
+        return copies;
+    }
+
+    private static int matches(Song[] copies, List<Song> songs) {
+        int hits = 0;
+        for (int i = 0; i < copies.length; i++) {
+            if (copies[i].hashCode() == songs.get(i).hashCode() && copies[i].equals(songs.get(i))) hits++;
+        }
+        return hits;
+    }
+
+    private static void storage(Harness h, int n, List<Song> songs) throws Exception {
+        Path dir = Files.createTempDirectory("songlib-suite");
+        Path file = dir.resolve("songs.lib");
+        LibraryStorage storage = new LibraryStorage(file);
+        try {
+            h.run("LibraryStorage.save", n, () -> () -> {
+                storage.save(songs);
+                return null;
+            });
+            h.run("LibraryStorage.load", n, () -> {
+                storage.save(songs);
+                return () -> storage.load().size();
+            });
+            h.run("LibraryStorage.loadMapped", n, () -> {
+                storage.save(songs);
+                return () -> storage.loadMapped().size();
+            });
+            h.run("LibraryStorage.streamSnapshot", n, () -> {
+                storage.save(songs);
+                return () -> storage.streamSnapshot(5_000, chunk -> { });
+            });
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package JavaSongLibraryApp.bench;
+
+import JavaSongLibraryApp.model.ConcurrentSongLibrary;
+import JavaSongLibraryApp.model.Song;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mixed read/write throughput of ConcurrentSongLibrary from 1 to 16 threads.
+ * Run from the IDE or with: java JavaSongLibraryApp.bench.ConcurrentLibraryBenchmark [songs] [write %]
+ *
+ * Every thread loops for a fixed time. A read takes a snapshot and looks up a random row of
+ * a sorted view; a write adds a new song or removes one it added earlier. Throughput is
+ * reported separately for reads and writes, after a warm-up pass.
+ */
+public class ConcurrentLibraryBenchmark {
+    private static final long RUN_MS = 2_000;
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) throws Exception {
+        int songs = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int writePercent = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        ConcurrentSongLibrary lib = new ConcurrentSongLibrary();
+        lib.addAll(SongLibraryBenchmark.randomSongs(songs, new Random(42)));
+
+        run(lib, 4, writePercent); // Warm-up, not reported
+        System.out.printf("%-8s %-8s %14s %14s%n", "threads", "write %", "reads/s", "writes/s");
+        for (int threads : THREADS) {
+            long[] r = run(lib, threads, writePercent);
+            System.out.printf("%-8d %-8d %14.0f %14.0f%n",
+                    threads, writePercent, r[0] * 1000.0 / RUN_MS, r[1] * 1000.0 / RUN_MS);
+        }
+    }
+
+    /** Runs the mix on the given number of threads. Returns {reads, writes} completed. */
+    private static long[] run(ConcurrentSongLibrary lib, int threads, int writePercent) throws Exception {
+        LongAdder reads = new LongAdder(), writes = new LongAdder();
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread w = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                Deque<Song> mine = new ArrayDeque<>();
+                long blackhole = 0;
+                int n = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (!stop.get()) {
+                    if (rnd.nextInt(100) < writePercent) {
+                        if (mine.size() > 100 || (!mine.isEmpty() && rnd.nextBoolean())) {
+                            lib.remove(mine.pollFirst());
+                        } else {
+                            Song s = new Song("Bench " + id + " " + n++, "Writer " + id, 2000, 3);
+                            lib.add(s);
+                            mine.addLast(s);
+                        }
+                        writes.increment();
+                    } else {
+                        ConcurrentSongLibrary.Snapshot snap = lib.snapshot();
+                        List<Song> view = snap.sortedByTitle();
+                        blackhole += view.get(rnd.nextInt(view.size())).getYear() + snap.version();
+                        reads.increment();
+                    }
+                }
+                for (Song s : mine) lib.remove(s);
+                if (blackhole == 42) System.out.print("");
+            });
+            workers.add(w);
+            w.start();
+        }
+        start.countDown();
+        Thread.sleep(RUN_MS);
+        stop.set(true);
+        for (Thread w : workers) w.join();
+        return new long[]{reads.sum(), writes.sum()};
+    }
+}
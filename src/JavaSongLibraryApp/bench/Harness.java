@@ -0,0 +1,129 @@
+package JavaSongLibraryApp.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+
+/**
+ * Small JMH-style runner: each case runs a few warm-up iterations, then timed measurement
+ * iterations, and reports mean throughput with the spread between iterations.
+ * An iteration calls the operation until its time budget is spent, so slow operations still
+ * get at least one call per iteration. Results are printed as a table and can be written as
+ * JSON or CSV, one record per case and size, for diffing between versions.
+ */
+public class Harness {
+    /** One benchmark operation. Returns something derived from its work so it is not optimized away. */
+    public interface Op {
+        Object run() throws Exception;
+    }
+
+    /** One measured case. */
+    public static final class Result {
+        final String benchmark;
+        final int size;
+        final double score;   // Mean ops/s over the measurement iterations
+        final double error;   // Half the min-max spread of the iterations
+        final int iterations;
+
+        Result(String benchmark, int size, double score, double error, int iterations) {
+            this.benchmark = benchmark;
+            this.size = size;
+            this.score = score;
+            this.error = error;
+            this.iterations = iterations;
+        }
+    }
+
+    private final int warmups;
+    private final int iterations;
+    private final long iterationNanos;
+    private final Pattern filter;
+    private final List<Result> results = new ArrayList<>();
+    // Every op's result is folded in, and the fold published here, so no op can be skipped
+    private static volatile int sink;
+
+    public Harness(int warmups, int iterations, long iterationMillis, String filter) {
+        this.warmups = warmups;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1_000_000;
+        this.filter = Pattern.compile(filter);
+    }
+
+    /** Builds a runner from "-w 3 -i 5 -ms 250 -filter regex" style arguments, ignoring the rest. */
+    public static Harness fromArgs(Map<String, String> opts) {
+        return new Harness(
+                Integer.parseInt(opts.getOrDefault("w", "3")),
+                Integer.parseInt(opts.getOrDefault("i", "5")),
+                Long.parseLong(opts.getOrDefault("ms", "250")),
+                opts.getOrDefault("filter", ".*"));
+    }
+
+    /** Parses "-key value" pairs. */
+    public static Map<String, String> options(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("-")) throw new IllegalArgumentException("Expected -option, got " + args[i]);
+            opts.put(args[i].substring(1), args[i + 1]);
+        }
+        return opts;
+    }
+
+    /**
+     * Measures one case. The setup runs once before the warm-up, and must leave op
+     * repeatable: anything op changes it should undo.
+     */
+    public void run(String benchmark, int size, Callable<Op> setup) throws Exception {
+        if (!filter.matcher(benchmark).find()) return;
+        Op op = setup.call();
+        for (int i = 0; i < warmups; i++) iteration(op);
+
+        double[] rates = new double[iterations];
+        for (int i = 0; i < iterations; i++) rates[i] = iteration(op);
+        double mean = Arrays.stream(rates).average().orElse(0);
+        double spread = Arrays.stream(rates).max().orElse(0) - Arrays.stream(rates).min().orElse(0);
+        Result r = new Result(benchmark, size, mean, spread / 2, iterations);
+        results.add(r);
+        System.out.printf("%-34s %10d %16.3f +- %-12.3f ops/s%n", r.benchmark, r.size, r.score, r.error);
+    }
+
+    /** Calls op until the budget is spent. Returns ops/s. */
+    private double iteration(Op op) throws Exception {
+        long ops = 0, t0 = System.nanoTime(), elapsed;
+        int fold = 0;
+        do {
+            Object out = op.run();
+            fold += out == null ? 0 : out.hashCode();
+            ops++;
+            elapsed = System.nanoTime() - t0;
+        } while (elapsed < iterationNanos);
+        sink += fold;
+        return ops * 1e9 / elapsed;
+    }
+
+    /** Writes the results as "json" (JMH-like field names) or "csv". */
+    public void write(Path file, String format) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            if ("csv".equals(format)) {
+                out.println("benchmark,size,mode,score,error,unit,iterations");
+                for (Result r : results) {
+                    out.printf(Locale.ROOT, "%s,%d,thrpt,%.6f,%.6f,ops/s,%d%n",
+                            r.benchmark, r.size, r.score, r.error, r.iterations);
+                }
+            } else {
+                out.println("[");
+                for (int i = 0; i < results.size(); i++) {
+                    Result r = results.get(i);
+                    out.printf(Locale.ROOT, "  {\"benchmark\": \"%s\", \"params\": {\"size\": \"%d\"}, "
+                                    + "\"mode\": \"thrpt\", \"primaryMetric\": {\"score\": %.6f, "
+                                    + "\"scoreError\": %.6f, \"scoreUnit\": \"ops/s\"}, \"measurementIterations\": %d}%s%n",
+                            r.benchmark, r.size, r.score, r.error, r.iterations, i + 1 < results.size() ? "," : "");
+                }
+                out.println("]");
+            }
+        }
+    }
+}
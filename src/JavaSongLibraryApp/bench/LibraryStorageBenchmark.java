@@ -0,0 +1,84 @@
+package JavaSongLibraryApp.bench;
+
+import JavaSongLibraryApp.model.Song;
+import JavaSongLibraryApp.model.SongLibrary;
+import JavaSongLibraryApp.persistence.LibraryStorage;
+
+import java.io.BufferedOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Compares the old Java serialization file with the binary library format.
+ * Run from the IDE or with: java JavaSongLibraryApp.bench.LibraryStorageBenchmark [sizes...]
+ *
+ * "serialized" is what LibraryStorage used to write, and is still read through the migration path.
+ * "binary" is the current format, loaded both through a buffered channel and a memory map.
+ */
+public class LibraryStorageBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length == 0
+                ? new int[]{1_000_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        Path dir = Files.createTempDirectory("songlib-bench");
+        Path ser = dir.resolve("songs.ser");
+        Path bin = dir.resolve("songs.lib");
+        LibraryStorage legacy = new LibraryStorage(dir.resolve("missing.lib"), ser);
+        LibraryStorage storage = new LibraryStorage(bin);
+
+        System.out.printf("%-10s %-12s %12s %12s %12s %12s%n",
+                "songs", "format", "save ms", "load ms", "mapped ms", "file MB");
+        for (int n : sizes) {
+            List<Song> songs = SongLibraryBenchmark.randomSongs(n, new Random(42));
+
+            double save = Double.MAX_VALUE, load = Double.MAX_VALUE;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                try (ObjectOutputStream out = new ObjectOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(ser)))) {
+                    out.writeObject(new ArrayList<>(songs));
+                }
+                save = Math.min(save, (System.nanoTime() - t0) / 1e6);
+
+                t0 = System.nanoTime();
+                check(legacy.load(), n);
+                load = Math.min(load, (System.nanoTime() - t0) / 1e6);
+            }
+            System.out.printf("%-10d %-12s %12.1f %12.1f %12s %12.2f%n",
+                    n, "serialized", save, load, "-", Files.size(ser) / 1e6);
+
+            save = load = Double.MAX_VALUE;
+            double mapped = Double.MAX_VALUE;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                storage.save(songs);
+                save = Math.min(save, (System.nanoTime() - t0) / 1e6);
+
+                t0 = System.nanoTime();
+                check(storage.load(), n);
+                load = Math.min(load, (System.nanoTime() - t0) / 1e6);
+
+                t0 = System.nanoTime();
+                check(storage.loadMapped(), n);
+                mapped = Math.min(mapped, (System.nanoTime() - t0) / 1e6);
+            }
+            System.out.printf("%-10d %-12s %12.1f %12.1f %12.1f %12.2f%n",
+                    n, "binary", save, load, mapped, Files.size(bin) / 1e6);
+        }
+
+        Files.deleteIfExists(ser);
+        Files.deleteIfExists(bin);
+        Files.deleteIfExists(dir);
+    }
+
+    private static void check(SongLibrary lib, int expected) {
+        if (lib.size() != expected) {
+            throw new IllegalStateException("Loaded " + lib.size() + " songs, expected " + expected);
+        }
+    }
+}
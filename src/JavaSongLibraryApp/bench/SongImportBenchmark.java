@@ -0,0 +1,64 @@
+package JavaSongLibraryApp.bench;
+
+import JavaSongLibraryApp.model.SongLibrary;
+import JavaSongLibraryApp.persistence.SongImporter;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Throughput of the bulk CSV importer, parsing only and parsing into a SongLibrary.
+ * Run from the IDE or with: java JavaSongLibraryApp.bench.SongImportBenchmark [rows...]
+ *
+ * The generated file has a header, quoted titles with commas and quotes in them, and one
+ * bad row in a thousand, so the error path is part of the measurement.
+ */
+public class SongImportBenchmark {
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length == 0
+                ? new int[]{1_000_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        System.out.printf("%-10s %-8s %-12s %12s %14s %10s%n",
+                "rows", "threads", "target", "seconds", "rows/s", "rejected");
+        for (int n : sizes) {
+            Path csv = Files.createTempFile("songs", ".csv");
+            write(csv, n, new Random(42));
+            int cores = Runtime.getRuntime().availableProcessors();
+            for (int threads = 1; threads <= cores; threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                SongImporter importer = new SongImporter(',', pool);
+                print(n, threads, "parse only", importer.importFile(csv, batch -> { }));
+                print(n, threads, "library", importer.importInto(csv, new SongLibrary()));
+                pool.shutdown();
+            }
+            Files.delete(csv);
+        }
+    }
+
+    private static void print(int n, int threads, String target, SongImporter.Report r) {
+        System.out.printf("%-10d %-8d %-12s %12.2f %14.0f %10d%n",
+                n, threads, target, r.getSeconds(), r.getRowsPerSecond(), r.getErrorCount());
+    }
+
+    private static void write(Path file, int rows, Random rnd) throws Exception {
+        int artists = Math.max(1, rows / 20);
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            w.write("title,artist,year,rating\n");
+            for (int i = 0; i < rows; i++) {
+                if (i % 1000 == 999) {
+                    w.write("Broken row " + i + ",Nobody,not a year,3\n");
+                } else if (i % 10 == 0) {
+                    w.write("\"Track, \"\"" + i + "\"\"\",Artist " + rnd.nextInt(artists) + ","
+                            + (1950 + rnd.nextInt(75)) + "," + (1 + rnd.nextInt(5)) + "\n");
+                } else {
+                    w.write("Track " + Integer.toString(rnd.nextInt(), 36) + " " + i + ",Artist "
+                            + rnd.nextInt(artists) + "," + (1950 + rnd.nextInt(75)) + "," + (1 + rnd.nextInt(5)) + "\r\n");
+                }
+            }
+        }
+    }
+}
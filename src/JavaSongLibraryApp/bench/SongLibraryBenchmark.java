@@ -0,0 +1,83 @@
+package JavaSongLibraryApp.bench;
+
+import JavaSongLibraryApp.model.Song;
+import JavaSongLibraryApp.model.SongLibrary;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the old stream-and-sort queries with the indexed SongLibrary views.
+ * Run from the IDE or with: java JavaSongLibraryApp.bench.SongLibraryBenchmark [sizes...]
+ *
+ * "stream" re-sorts a plain ArrayList on every call, which is what SongLibrary used to do.
+ * "indexed" reads the same view from SongLibrary, both straight after a change (the view
+ * has to be rebuilt from the tree) and on a repeat call (the cached view is returned).
+ */
+public class SongLibraryBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0
+                ? new int[]{10_000, 100_000, 1_000_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        System.out.printf("%-10s %-16s %14s %14s %14s%n",
+                "songs", "view", "stream ms", "indexed ms", "repeat ms");
+        for (int n : sizes) {
+            List<Song> songs = randomSongs(n, new Random(42));
+            SongLibrary lib = new SongLibrary();
+            long t0 = System.nanoTime();
+            for (Song s : songs) lib.add(s);
+            System.out.printf("%-10d %-16s %14s %14.2f %14s%n",
+                    n, "add all", "-", (System.nanoTime() - t0) / 1e6, "-");
+
+            run(n, "title", songs, lib, SongLibrary.BY_TITLE, lib::sortedByTitle);
+            run(n, "artist", songs, lib, SongLibrary.BY_ARTIST, lib::sortedByArtist);
+            run(n, "year desc", songs, lib, SongLibrary.BY_YEAR_DESC, lib::sortedByYearDesc);
+            run(n, "rating desc", songs, lib, SongLibrary.BY_RATING_DESC, lib::sortedByRatingDesc);
+        }
+    }
+
+    /** Times one sort order both ways and prints the best of a few rounds. */
+    private static void run(int n, String name, List<Song> songs, SongLibrary lib,
+                            Comparator<Song> order, Supplier<List<Song>> view) {
+        double stream = Double.MAX_VALUE, indexed = Double.MAX_VALUE, repeat = Double.MAX_VALUE;
+        Song probe = new Song("Benchmark probe", "Nobody", 2000, 3);
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            List<Song> sorted = songs.stream().sorted(order).collect(Collectors.toList());
+            stream = Math.min(stream, (System.nanoTime() - t0) / 1e6);
+
+            // One add + remove invalidates the cached view, like a user edit would.
+            lib.add(probe);
+            lib.remove(probe);
+            t0 = System.nanoTime();
+            List<Song> fresh = view.get();
+            indexed = Math.min(indexed, (System.nanoTime() - t0) / 1e6);
+
+            t0 = System.nanoTime();
+            view.get();
+            repeat = Math.min(repeat, (System.nanoTime() - t0) / 1e6);
+
+            if (!sorted.equals(fresh) || sorted.size() != fresh.size()) {
+                throw new IllegalStateException("Indexed " + name + " view differs from stream sort");
+            }
+        }
+        System.out.printf("%-10d %-16s %14.2f %14.2f %14.4f%n", n, name, stream, indexed, repeat);
+    }
+
+    /** Deterministic synthetic library with a realistic share of repeated artists. */
+    static List<Song> randomSongs(int n, Random rnd) {
+        int artists = Math.max(1, n / 20);
+        List<Song> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            out.add(new Song("Track " + Integer.toString(rnd.nextInt(), 36) + " " + i,
+                    "Artist " + rnd.nextInt(artists),
+                    1950 + rnd.nextInt(75),
+                    1 + rnd.nextInt(5)));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,99 @@
+package JavaSongLibraryApp.bench;
+
+import JavaSongLibraryApp.model.ColumnarSongLibrary;
+import JavaSongLibraryApp.model.Song;
+import JavaSongLibraryApp.model.SongLibrary;
+import JavaSongLibraryApp.persistence.LibraryStorage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Measures heap per song, before and after artist interning and the cached keys on Song,
+ * and against a ColumnarSongLibrary mapped from disk.
+ * Run from the IDE or with: java JavaSongLibraryApp.bench.SongMemoryBenchmark [sizes...]
+ *
+ * "before" holds the same four fields the old Song had, with every artist its own String,
+ * which is what a parser or deserializer used to produce. "after" is the current Song, first
+ * fresh, then once hashCode and search have filled in its caches. "SongLibrary" is those songs
+ * with every index built; "columnar" is the same songs mapped from a columnar file, which
+ * keeps them off the heap, with the file size shown separately.
+ * Heap is read after forcing GCs, so treat the numbers as estimates.
+ */
+public class SongMemoryBenchmark {
+    /** Stand-in for the old Song layout: no pooling, no caches. */
+    private static final class PlainSong {
+        final String title, artist;
+        final int year, rating;
+
+        PlainSong(String title, String artist, int year, int rating) {
+            this.title = title;
+            this.artist = artist;
+            this.year = year;
+            this.rating = rating;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length == 0
+                ? new int[]{1_000_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        System.out.printf("%-10s %-24s %14s%n", "songs", "layout", "bytes/song");
+        for (int n : sizes) {
+            long base = usedHeap();
+            List<PlainSong> plain = new ArrayList<>(n);
+            Random rnd = new Random(42);
+            int artists = Math.max(1, n / 20);
+            for (int i = 0; i < n; i++) {
+                plain.add(new PlainSong("Track " + Integer.toString(rnd.nextInt(), 36) + " " + i,
+                        "Artist " + rnd.nextInt(artists), 1950 + rnd.nextInt(75), 1 + rnd.nextInt(5)));
+            }
+            print(n, "before (plain fields)", usedHeap() - base);
+            plain = null;
+
+            base = usedHeap();
+            List<Song> songs = SongLibraryBenchmark.randomSongs(n, new Random(42));
+            print(n, "after, fresh", usedHeap() - base);
+
+            // Hashing caches one int per song; searching caches the folded title and artist
+            Set<Song> unique = new HashSet<>(songs);
+            if (unique.isEmpty()) throw new IllegalStateException();
+            unique = null;
+            print(n, "after, hashed", usedHeap() - base);
+            songs.stream().filter(SongLibrary.containing("zzz")).count();
+            print(n, "after, searched", usedHeap() - base);
+
+            SongLibrary lib = new SongLibrary();
+            for (Song s : songs) lib.add(s);
+            print(n, "SongLibrary, indexed", usedHeap() - base);
+
+            Path file = Files.createTempFile("songlib-columnar", ".col");
+            try {
+                LibraryStorage.writeColumnar(lib.all(), file);
+                lib = null;
+                songs = null;
+                base = usedHeap();
+                ColumnarSongLibrary columnar = LibraryStorage.mapColumnar(file);
+                // Touch every column so the numbers include whatever the mapping costs on the heap
+                int hits = columnar.search("zzz", SongLibrary.BY_TITLE).size() + columnar.sortedByYearDesc().get(0).getYear();
+                print(n, "columnar, mapped", usedHeap() - base);
+                print(n, "columnar, off heap", Files.size(file));
+                if (columnar.size() != n || hits < 0) throw new IllegalStateException();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static void print(int n, String layout, long bytes) {
+        System.out.printf("%-10d %-24s %14.1f%n", n, layout, (double) bytes / n);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
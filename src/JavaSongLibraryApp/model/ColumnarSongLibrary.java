@@ -0,0 +1,296 @@
+package JavaSongLibraryApp.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only song library stored column by column in one buffer, normally a memory-mapped file
+ * (see LibraryStorage.mapColumnar). Offers the same queries as SongLibrary, but holds no Song
+ * objects: a Song is built from the columns each time one is read, so the heap cost is a few
+ * objects per library rather than several per song.
+ *
+ * Layout, all ints big-endian:
+ * <pre>
+ * "SCOL" version count artists stringBytes
+ * year[count] rating[count] artist[count]           artist is an index into the artist table
+ * titleStart[count + 1] artistStart[artists + 1]    offsets into the string bytes
+ * byTitle[count] byArtist[count] byYear[count] byRating[count]   rows in each sort order
+ * stringBytes bytes of UTF-8: every title, then every distinct artist
+ * </pre>
+ * The sort orders are worked out once when the file is written, so the sorted views are
+ * read in place. Rows are numbered in insertion order. To change the songs, write a new file.
+ */
+public class ColumnarSongLibrary {
+    private static final int MAGIC = 0x53434F4C; // "SCOL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+
+    private final int count, artists;
+    private final IntBuffer year, rating, artist, titleStart, artistStart;
+    private final IntBuffer byTitle, byArtist, byYear, byRating;
+    private final ByteBuffer strings;
+    private final String[] artistNames; // Decoded on first use; one per distinct artist
+
+    /** Reads the columns in place from a buffer laid out by write. Throws IOException if it is not one. */
+    public ColumnarSongLibrary(ByteBuffer buf) throws IOException {
+        buf = buf.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (buf.remaining() < HEADER_BYTES || buf.getInt(0) != MAGIC) throw new IOException("Not a columnar song file");
+        if (buf.getInt(4) != VERSION) throw new IOException("Unsupported columnar file version " + buf.getInt(4));
+        count = buf.getInt(8);
+        artists = buf.getInt(12);
+        int stringBytes = buf.getInt(16);
+        long ints = 8L * count + artists + 2;
+        if (count < 0 || artists < 0 || stringBytes < 0 || HEADER_BYTES + 4 * ints + stringBytes > buf.capacity()) {
+            throw new IOException("Columnar song file is truncated");
+        }
+
+        int at = HEADER_BYTES;
+        year = column(buf, at, count);
+        rating = column(buf, at += 4 * count, count);
+        artist = column(buf, at += 4 * count, count);
+        titleStart = column(buf, at += 4 * count, count + 1);
+        artistStart = column(buf, at += 4 * (count + 1), artists + 1);
+        byTitle = column(buf, at += 4 * (artists + 1), count);
+        byArtist = column(buf, at += 4 * count, count);
+        byYear = column(buf, at += 4 * count, count);
+        byRating = column(buf, at += 4 * count, count);
+        at += 4 * count;
+        strings = buf.position(at).limit(at + stringBytes).slice();
+        artistNames = new String[artists];
+    }
+
+    private static IntBuffer column(ByteBuffer buf, int at, int length) {
+        return buf.position(at).limit(at + 4 * length).slice().asIntBuffer();
+    }
+
+    /**
+     * Writes the songs, in the given order, in the layout described above. The sort orders
+     * are the ones SongLibrary uses, with ties in insertion order, so every view matches a
+     * SongLibrary holding the same songs.
+     */
+    public static void write(List<Song> songs, WritableByteChannel out) throws IOException {
+        int n = songs.size();
+        Map<String, Integer> artistIds = new HashMap<>();
+        List<byte[]> artistBytes = new ArrayList<>();
+        byte[][] titles = new byte[n][];
+        int[] artistOf = new int[n];
+        long titleBytes = 0, allArtistBytes = 0;
+        for (int i = 0; i < n; i++) {
+            Song s = songs.get(i);
+            titles[i] = s.getTitle().getBytes(StandardCharsets.UTF_8);
+            titleBytes += titles[i].length;
+            Integer id = artistIds.get(s.getArtist());
+            if (id == null) {
+                id = artistBytes.size();
+                artistIds.put(s.getArtist(), id);
+                byte[] b = s.getArtist().getBytes(StandardCharsets.UTF_8);
+                artistBytes.add(b);
+                allArtistBytes += b.length;
+            }
+            artistOf[i] = id;
+        }
+        int a = artistBytes.size();
+        long total = HEADER_BYTES + 4 * (8L * n + a + 2) + titleBytes + allArtistBytes;
+        if (total > Integer.MAX_VALUE) throw new IOException("Library too large for one columnar file");
+
+        ByteBuffer buf = ByteBuffer.allocate((int) total);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(a).putInt((int) (titleBytes + allArtistBytes));
+        for (Song s : songs) buf.putInt(s.getYear());
+        for (Song s : songs) buf.putInt(s.getRating());
+        for (int id : artistOf) buf.putInt(id);
+        int offset = 0;
+        for (byte[] t : titles) {
+            buf.putInt(offset);
+            offset += t.length;
+        }
+        buf.putInt(offset);
+        for (byte[] b : artistBytes) {
+            buf.putInt(offset);
+            offset += b.length;
+        }
+        buf.putInt(offset);
+        for (Comparator<Song> order : List.of(SongLibrary.BY_TITLE, SongLibrary.BY_ARTIST,
+                SongLibrary.BY_YEAR_DESC, SongLibrary.BY_RATING_DESC)) {
+            Integer[] rows = new Integer[n];
+            for (int i = 0; i < n; i++) rows[i] = i;
+            Arrays.sort(rows, (x, y) -> order.compare(songs.get(x), songs.get(y))); // Stable, so ties stay in row order
+            for (int r : rows) buf.putInt(r);
+        }
+        for (byte[] t : titles) buf.put(t);
+        for (byte[] b : artistBytes) buf.put(b);
+
+        buf.flip();
+        while (buf.hasRemaining()) out.write(buf);
+    }
+
+    /** Number of songs in the library. */
+    public int size() { return count; }
+
+    /** The song in the given row, built from the columns. */
+    Song song(int row) {
+        return new Song(title(row), artistName(artist.get(row)), year.get(row), rating.get(row));
+    }
+
+    private String title(int row) {
+        return text(titleStart.get(row), titleStart.get(row + 1));
+    }
+
+    private String artistName(int id) {
+        String name = artistNames[id];
+        if (name == null) {
+            name = text(artistStart.get(id), artistStart.get(id + 1));
+            artistNames[id] = name;
+        }
+        return name;
+    }
+
+    private String text(int from, int to) {
+        byte[] b = new byte[to - from];
+        strings.get(from, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /** Read-only list of songs by row, built on each get. */
+    private final class Rows extends AbstractList<Song> implements RandomAccess {
+        private final IntBuffer order; // Rows in list order, or null for insertion order
+        private final int[] picked;    // Or an explicit list of rows
+
+        Rows(IntBuffer order, int[] picked) {
+            this.order = order;
+            this.picked = picked;
+        }
+
+        @Override
+        public Song get(int i) {
+            if (picked != null) return song(picked[i]);
+            Objects.checkIndex(i, count);
+            return song(order == null ? i : order.get(i));
+        }
+
+        @Override
+        public int size() { return picked != null ? picked.length : count; }
+    }
+
+    /** Read-only list of the songs in insertion order. Each get builds a new Song. */
+    public List<Song> all() { return new Rows(null, null); }
+
+    /** Returns a new List with only the items that match the predicate. */
+    public List<Song> filtered(Predicate<Song> p) {
+        return all().stream().filter(p).collect(Collectors.toList());
+    }
+
+    /** Read-only List sorted by the Song's natural order (title). */
+    public List<Song> sortedByTitle() { return new Rows(byTitle, null); }
+
+    /** Read-only List sorted by artist, then title, both case insensitive. */
+    public List<Song> sortedByArtist() { return new Rows(byArtist, null); }
+
+    /** Read-only List sorted by year descending, then title. */
+    public List<Song> sortedByYearDesc() { return new Rows(byYear, null); }
+
+    /** Read-only List sorted by rating descending, then title. */
+    public List<Song> sortedByRatingDesc() { return new Rows(byRating, null); }
+
+    /** The stored sort order for one of SongLibrary's comparators, or null. */
+    private IntBuffer orderFor(Comparator<Song> order) {
+        if (order == SongLibrary.BY_TITLE) return byTitle;
+        if (order == SongLibrary.BY_ARTIST) return byArtist;
+        if (order == SongLibrary.BY_YEAR_DESC) return byYear;
+        if (order == SongLibrary.BY_RATING_DESC) return byRating;
+        return null;
+    }
+
+    /**
+     * True if a song with the same title and artist, ignoring case, is in the library.
+     * A binary search of the title order, O(log n).
+     */
+    public boolean contains(Song s) {
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (title(byTitle.get(mid)).compareToIgnoreCase(s.getTitle()) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        for (int i = lo; i < count; i++) {
+            int row = byTitle.get(i);
+            if (!title(row).equalsIgnoreCase(s.getTitle())) break;
+            if (artistName(artist.get(row)).equalsIgnoreCase(s.getArtist())) return true;
+        }
+        return false;
+    }
+
+    /** Same as SongLibrary.page. The stored orders are walked in place; others use a bounded heap. */
+    public List<Song> page(int offset, int limit, Comparator<Song> order, Predicate<Song> filter) {
+        IntBuffer stored = orderFor(order);
+        return stored != null
+                ? SongLibrary.scan(new Rows(stored, null), offset, limit, filter)
+                : SongLibrary.select(all(), offset, limit, order, filter);
+    }
+
+    /** Same as SongLibrary.top. */
+    public List<Song> top(int k, Comparator<Song> order, Predicate<Song> filter) {
+        return page(0, k, order, filter);
+    }
+
+    /**
+     * Songs whose title or artist contains the text, case insensitive, in the given order.
+     * There is no trigram index here: titles are scanned as bytes in place, without building
+     * Strings, and each distinct artist is checked only once.
+     */
+    public List<Song> search(String text, Comparator<Song> order) {
+        String query = SubstringIndex.fold(text);
+        byte[] q = query.getBytes(StandardCharsets.UTF_8);
+        boolean ascii = q.length == query.length();
+
+        boolean[] artistHit = new boolean[artists];
+        for (int id = 0; id < artists; id++) {
+            artistHit[id] = contains(artistStart.get(id), artistStart.get(id + 1), q, ascii, query);
+        }
+
+        IntBuffer stored = orderFor(order);
+        int[] hits = new int[16];
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            int row = stored == null ? i : stored.get(i);
+            if (artistHit[artist.get(row)] || contains(titleStart.get(row), titleStart.get(row + 1), q, ascii, query)) {
+                if (found == hits.length) hits = Arrays.copyOf(hits, found * 2);
+                hits[found++] = row;
+            }
+        }
+        List<Song> out = new Rows(null, Arrays.copyOf(hits, found));
+        if (stored == null) {
+            out = new ArrayList<>(out);
+            out.sort(order); // Stable, so ties stay in insertion order
+        }
+        return out;
+    }
+
+    /**
+     * True if the UTF-8 text between from and to contains the folded query. ASCII text is
+     * matched byte by byte, lower-casing as it goes; anything else is decoded and folded.
+     */
+    private boolean contains(int from, int to, byte[] q, boolean asciiQuery, String query) {
+        for (int i = from; i < to; i++) {
+            if (strings.get(i) < 0) return SubstringIndex.fold(text(from, to)).contains(query);
+        }
+        // Lower-cased ASCII text cannot contain a query with other characters
+        if (!asciiQuery) return false;
+        outer:
+        for (int i = from, last = to - q.length; i <= last; i++) {
+            for (int j = 0; j < q.length; j++) {
+                int c = strings.get(i + j);
+                if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+                if (c != q[j]) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+}
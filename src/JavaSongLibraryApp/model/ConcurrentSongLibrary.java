@@ -0,0 +1,203 @@
+package JavaSongLibraryApp.model;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Thread-safe SongLibrary for many readers and writers at once, such as a background loader,
+ * an importer and the UI.
+ *
+ * Readers never lock: every read goes to an immutable Snapshot, published through a volatile
+ * field, so a reader always sees one consistent state of the library. Writers queue their
+ * change and take a lock; whoever holds it applies every change queued so far and publishes
+ * one new snapshot for the lot. Under contention many writes share one publish, and a writer
+ * whose change was already applied by another just returns.
+ *
+ * Publishing copies the sorted views out of the indexes, O(n), so batch writes with addAll
+ * where possible. Snapshots keep no trigram index, so search scans the snapshot, O(n); the
+ * set behind contains is built the first time a snapshot is asked.
+ */
+public class ConcurrentSongLibrary {
+    /** An immutable, consistent view of the library at one version. */
+    public static final class Snapshot {
+        private final long version;
+        private final List<Song> all, byTitle, byArtist, byYear, byRating;
+        private volatile Set<Song> songs; // For contains; built on first use
+
+        private Snapshot(SongLibrary lib) {
+            // The index views are read-only lists that are never modified once built
+            version = lib.version();
+            all = lib.all();
+            byTitle = lib.sortedByTitle();
+            byArtist = lib.sortedByArtist();
+            byYear = lib.sortedByYearDesc();
+            byRating = lib.sortedByRatingDesc();
+        }
+
+        public long version() { return version; }
+        public int size() { return all.size(); }
+
+        /** Read-only list of the songs in insertion order. */
+        public List<Song> all() { return all; }
+
+        /** Returns a new List with only the items that match the predicate. */
+        public List<Song> filtered(Predicate<Song> p) {
+            return all.stream().filter(p).collect(Collectors.toList());
+        }
+
+        /** Same as SongLibrary.contains: O(1) once this snapshot's set is built. */
+        public boolean contains(Song s) {
+            Set<Song> set = songs;
+            if (set == null) {
+                set = new HashSet<>(all); // A race only builds the same set twice
+                songs = set;
+            }
+            return set.contains(s);
+        }
+
+        /**
+         * Same result as SongLibrary.search, answered from this snapshot by one pass over it:
+         * down the sorted view for an order the library indexes, otherwise in insertion order
+         * followed by a stable sort, so ties keep insertion order either way.
+         */
+        public List<Song> search(String text, Comparator<Song> order) {
+            Predicate<Song> match = SongLibrary.containing(text);
+            List<Song> sorted = sortedBy(order);
+            List<Song> out = new ArrayList<>();
+            for (Song s : sorted != null ? sorted : all) {
+                if (match.test(s)) out.add(s);
+            }
+            if (sorted == null) out.sort(order);
+            return out;
+        }
+
+        /** Same as SongLibrary.top, answered from this snapshot. */
+        public List<Song> top(int k, Comparator<Song> order, Predicate<Song> filter) {
+            return page(0, k, order, filter);
+        }
+
+        /** Same as SongLibrary.page, answered from this snapshot. */
+        public List<Song> page(int offset, int limit, Comparator<Song> order, Predicate<Song> filter) {
+            List<Song> sorted = sortedBy(order);
+            return sorted != null
+                    ? SongLibrary.scan(sorted, offset, limit, filter)
+                    : SongLibrary.select(all, offset, limit, order, filter);
+        }
+
+        private List<Song> sortedBy(Comparator<Song> order) {
+            if (order == SongLibrary.BY_TITLE) return byTitle;
+            if (order == SongLibrary.BY_ARTIST) return byArtist;
+            if (order == SongLibrary.BY_YEAR_DESC) return byYear;
+            if (order == SongLibrary.BY_RATING_DESC) return byRating;
+            return null;
+        }
+
+        public List<Song> sortedByTitle() { return byTitle; }
+        public List<Song> sortedByArtist() { return byArtist; }
+        public List<Song> sortedByYearDesc() { return byYear; }
+        public List<Song> sortedByRatingDesc() { return byRating; }
+    }
+
+    /** One queued change. Fields are only touched while holding the write lock. */
+    private static final class Change {
+        final Collection<Song> songs;
+        final boolean add;
+        int changed;  // Songs actually added or removed
+        boolean done;
+
+        Change(Collection<Song> songs, boolean add) {
+            this.songs = songs;
+            this.add = add;
+        }
+    }
+
+    private final SongLibrary library; // Guarded by writeLock
+    private final SongLibrary.DuplicatePolicy policy;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Queue<Change> queued = new ConcurrentLinkedQueue<>();
+    private volatile Snapshot current;
+
+    /** A library that keeps duplicates, like SongLibrary's default. */
+    public ConcurrentSongLibrary() {
+        this(SongLibrary.DuplicatePolicy.ALLOW);
+    }
+
+    public ConcurrentSongLibrary(SongLibrary.DuplicatePolicy policy) {
+        this.policy = policy;
+        library = new SongLibrary(policy);
+        current = new Snapshot(library);
+    }
+
+    public SongLibrary.DuplicatePolicy duplicatePolicy() { return policy; }
+
+    /** The current state of the library. Lock-free; the result never changes. */
+    public Snapshot snapshot() { return current; }
+
+    /**
+     * Adds a song, unless the duplicate policy turns it away. Visible to readers once this returns.
+     * Returns true if the library changed.
+     */
+    public boolean add(Song s) {
+        return addAll(List.of(Objects.requireNonNull(s, "song"))) > 0;
+    }
+
+    /** Adds every song, published to readers as one change. Returns how many were added. */
+    public int addAll(Collection<Song> songs) {
+        for (Song s : songs) Objects.requireNonNull(s, "song");
+        return apply(new Change(List.copyOf(songs), true));
+    }
+
+    /**
+     * Removes a song. Like SongLibrary.remove, the oldest equal song goes first.
+     * Returns true if the item was found and removed.
+     */
+    public boolean remove(Song s) {
+        return apply(new Change(List.of(s), false)) > 0;
+    }
+
+    /** Removes one equal song per argument, as one change. Returns how many were found. */
+    public int removeAll(Collection<Song> songs) {
+        return apply(new Change(List.copyOf(songs), false));
+    }
+
+    // Same read API as SongLibrary, each call answered from the snapshot current at the time.
+    // Use snapshot() when several reads must agree with each other.
+    public int size() { return current.size(); }
+    public long version() { return current.version(); }
+    public List<Song> all() { return current.all(); }
+    public List<Song> filtered(Predicate<Song> p) { return current.filtered(p); }
+    public boolean contains(Song s) { return current.contains(s); }
+    public List<Song> search(String text, Comparator<Song> order) { return current.search(text, order); }
+    public List<Song> top(int k, Comparator<Song> order, Predicate<Song> filter) { return current.top(k, order, filter); }
+    public List<Song> page(int offset, int limit, Comparator<Song> order, Predicate<Song> filter) {
+        return current.page(offset, limit, order, filter);
+    }
+    public List<Song> sortedByTitle() { return current.sortedByTitle(); }
+    public List<Song> sortedByArtist() { return current.sortedByArtist(); }
+    public List<Song> sortedByYearDesc() { return current.sortedByYearDesc(); }
+    public List<Song> sortedByRatingDesc() { return current.sortedByRatingDesc(); }
+
+    /** Queues the change, then applies every queued change under the lock unless someone already has. */
+    private int apply(Change change) {
+        queued.add(change);
+        writeLock.lock();
+        try {
+            if (!change.done) {
+                Change c;
+                while ((c = queued.poll()) != null) {
+                    for (Song s : c.songs) {
+                        if (c.add ? library.add(s) : library.remove(s)) c.changed++;
+                    }
+                    c.done = true;
+                }
+                current = new Snapshot(library);
+            }
+            return change.changed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package JavaSongLibraryApp.model;
 
 import java.io.Serializable;
-import java.util.Objects;
 
 /**
  * Immutable value object that represents a Song.
@@ -16,6 +15,14 @@ public class Song implements Comparable<Song>, Serializable {
     private final int year;
     private final int rating; // Allowed range 1..5
 
+    // Artist names repeat across thousands of songs, so every Song shares one instance per name
+    private static final StringPool ARTISTS = new StringPool();
+
+    // Derived on first use and not serialized: folded text for search, and the hash
+    private transient String foldedTitle;
+    private transient String foldedArtist;
+    private transient int hash; // 0 until computed, like String's own cache
+
     /**
      * Validates inputs and creates an immutable Song.
      * Throws IllegalArgumentException if any input is invalid.
@@ -28,7 +35,7 @@ public class Song implements Comparable<Song>, Serializable {
 
         // Trim to keep data clean and deterministic for equality and display
         this.title = title.trim();
-        this.artist = artist.trim();
+        this.artist = ARTISTS.intern(artist.trim());
         this.year = year;
         this.rating = rating;
     }
@@ -39,6 +46,31 @@ public class Song implements Comparable<Song>, Serializable {
     public int getYear() { return year; }
     public int getRating() { return rating; }
 
+    /** Lower-cased title. Computed once, then reused; the same instance if already lower case. */
+    String foldedTitle() {
+        String f = foldedTitle;
+        if (f == null) {
+            f = SubstringIndex.fold(title);
+            foldedTitle = f;
+        }
+        return f;
+    }
+
+    /** Lower-cased artist, shared by every song with that artist. */
+    String foldedArtist() {
+        String f = foldedArtist;
+        if (f == null) {
+            f = ARTISTS.intern(SubstringIndex.fold(artist));
+            foldedArtist = f;
+        }
+        return f;
+    }
+
+    /** True if the title or artist contains an already lower-cased query. Allocation free. */
+    boolean containsFolded(String query) {
+        return foldedTitle().contains(query) || foldedArtist().contains(query);
+    }
+
     /**
      * Natural ordering. Sorts by title, case insensitive.
      * This allows Collections.sort(listOfSongs) to work without an explicit Comparator.
@@ -63,11 +95,34 @@ public class Song implements Comparable<Song>, Serializable {
 
     /**
      * Hash code must agree with equals.
-     * Use lower-cased values to match equals' case-insensitive logic.
+     * Folds each char the way equalsIgnoreCase compares them, so no lower-cased copies are made,
+     * and caches the result so only the first call does any work.
      */
     @Override
     public int hashCode() {
-        return Objects.hash(title.toLowerCase(), artist.toLowerCase());
+        int h = hash;
+        if (h == 0) {
+            h = 31 * foldedHash(title) + foldedHash(artist);
+            hash = h;
+        }
+        return h;
+    }
+
+    private static int foldedHash(String s) {
+        int h = 0;
+        for (int i = 0; i < s.length(); i++) {
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(s.charAt(i)));
+        }
+        return h;
+    }
+
+    /**
+     * Deserialization bypasses the constructor, so a Song read from an old songs.ser goes
+     * through it here: the fields are validated and trimmed, and the artist comes from the pool.
+     * Throws IllegalArgumentException for a song the constructor would reject.
+     */
+    private Object readResolve() {
+        return new Song(title, artist, year, rating);
     }
 
     /**
@@ -0,0 +1,154 @@
+package JavaSongLibraryApp.model;
+
+import java.util.*;
+
+/**
+ * Running counts over a SongLibrary: songs per year, decade, rating and artist, and the
+ * average rating per artist. It listens to the library and updates on every add and remove,
+ * so each count is an O(1) read rather than a pass over all the songs.
+ *
+ * Not thread-safe on its own: it changes on the thread that changes the library, so read it
+ * under the same lock as the library, or on the thread that owns it.
+ */
+public class SongFacets implements SongLibrary.Listener {
+    private static final int FIRST_YEAR = 1900, LAST_YEAR = 2100; // Song's allowed range
+
+    /** Songs by one artist. Artists are grouped ignoring case, like Song.equals. */
+    public static final class ArtistFacet {
+        private final String artist;
+        private int count;
+        private long ratingSum;
+
+        ArtistFacet(String artist) {
+            this.artist = artist;
+        }
+
+        /** The artist as spelled on the first song counted. */
+        public String getArtist() { return artist; }
+        public int getCount() { return count; }
+        public double getAverageRating() { return count == 0 ? 0 : (double) ratingSum / count; }
+
+        @Override
+        public String toString() { return artist + " (" + count + ")"; }
+    }
+
+    private final int[] byYear = new int[LAST_YEAR - FIRST_YEAR + 1];
+    private final int[] byDecade = new int[LAST_YEAR / 10 - FIRST_YEAR / 10 + 1];
+    private final int[] byRating = new int[6]; // 1..5, slot 0 unused
+    private final Map<String, ArtistFacet> byArtist = new HashMap<>(); // Keyed on the folded name
+    private int size;
+    private long ratingSum;
+
+    /** Counts the songs already in the library, then follows its changes. */
+    public SongFacets(SongLibrary library) {
+        for (Song s : library.all()) added(s);
+        library.addListener(this);
+    }
+
+    @Override
+    public void added(Song s) {
+        update(s, 1);
+    }
+
+    @Override
+    public void removed(Song s) {
+        update(s, -1);
+    }
+
+    private void update(Song s, int delta) {
+        byYear[s.getYear() - FIRST_YEAR] += delta;
+        byDecade[s.getYear() / 10 - FIRST_YEAR / 10] += delta;
+        byRating[s.getRating()] += delta;
+        size += delta;
+        ratingSum += delta * s.getRating();
+
+        String key = s.foldedArtist();
+        ArtistFacet a = byArtist.get(key);
+        if (a == null) {
+            a = new ArtistFacet(s.getArtist());
+            byArtist.put(key, a);
+        }
+        a.count += delta;
+        a.ratingSum += delta * s.getRating();
+        if (a.count == 0) byArtist.remove(key);
+    }
+
+    /** Number of songs counted. */
+    public int size() { return size; }
+
+    /** Average rating over every song, or 0 for an empty library. */
+    public double averageRating() { return size == 0 ? 0 : (double) ratingSum / size; }
+
+    public int countForYear(int year) {
+        return year < FIRST_YEAR || year > LAST_YEAR ? 0 : byYear[year - FIRST_YEAR];
+    }
+
+    /** Songs from the decade starting at the given year, such as 1990 for the 1990s. */
+    public int countForDecade(int decade) {
+        int slot = Math.floorDiv(decade, 10) - FIRST_YEAR / 10;
+        return slot < 0 || slot >= byDecade.length ? 0 : byDecade[slot];
+    }
+
+    public int countForRating(int rating) {
+        return rating < 1 || rating > 5 ? 0 : byRating[rating];
+    }
+
+    /** Songs by the artist, ignoring case. */
+    public int countForArtist(String artist) {
+        ArtistFacet a = byArtist.get(SubstringIndex.fold(artist.trim()));
+        return a == null ? 0 : a.count;
+    }
+
+    /** Average rating of the artist's songs, or 0 if there are none. */
+    public double averageRating(String artist) {
+        ArtistFacet a = byArtist.get(SubstringIndex.fold(artist.trim()));
+        return a == null ? 0 : a.getAverageRating();
+    }
+
+    /** Years with at least one song, oldest first, and their counts. */
+    public SortedMap<Integer, Integer> years() {
+        return nonZero(byYear, FIRST_YEAR, 1);
+    }
+
+    /** Decades with at least one song, keyed on their first year, oldest first. */
+    public SortedMap<Integer, Integer> decades() {
+        return nonZero(byDecade, FIRST_YEAR / 10 * 10, 10);
+    }
+
+    /** Ratings with at least one song, lowest first. */
+    public SortedMap<Integer, Integer> ratings() {
+        return nonZero(byRating, 0, 1);
+    }
+
+    private static SortedMap<Integer, Integer> nonZero(int[] counts, int base, int step) {
+        SortedMap<Integer, Integer> out = new TreeMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) out.put(base + i * step, counts[i]);
+        }
+        return out;
+    }
+
+    /** Every artist with at least one song, in no particular order. Read-only, live. */
+    public Collection<ArtistFacet> artists() {
+        return Collections.unmodifiableCollection(byArtist.values());
+    }
+
+    /** The k artists with the most songs, most first, ties by name. O(a log k) for a artists. */
+    public List<ArtistFacet> topArtists(int k) {
+        Comparator<ArtistFacet> order = Comparator.comparingInt(ArtistFacet::getCount).reversed()
+                .thenComparing(ArtistFacet::getArtist, String.CASE_INSENSITIVE_ORDER);
+        if (k <= 0) return new ArrayList<>();
+        PriorityQueue<ArtistFacet> heap = new PriorityQueue<>(Math.min(k, 1024) + 1, order.reversed());
+        for (ArtistFacet a : byArtist.values()) {
+            if (heap.size() < k) {
+                heap.add(a);
+            } else if (order.compare(a, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(a);
+            }
+        }
+        List<ArtistFacet> out = new ArrayList<>(heap);
+        out.sort(order);
+        return out;
+    }
+}
@@ -0,0 +1,81 @@
+package JavaSongLibraryApp.model;
+
+import java.util.*;
+
+/**
+ * One secondary index of the library: a TreeSet kept in a fixed order.
+ * Add and remove are O(log n). The sorted List handed out to callers is built once
+ * from the tree and reused until the next change, so repeated reads never re-sort.
+ */
+class SongIndex {
+    /**
+     * A song as stored in the library. The sequence number is unique per insert, so two
+     * songs that compare equal still get separate tree nodes, in insertion order.
+     */
+    static final class Entry {
+        final Song song;
+        final long seq;
+        boolean removed; // Set when the song leaves the library, for indexes that drop it lazily
+
+        Entry(Song song, long seq) {
+            this.song = song;
+            this.seq = seq;
+        }
+    }
+
+    private final TreeSet<Entry> tree;
+    private List<Song> view; // Cached read-only snapshot, null when stale
+
+    SongIndex(Comparator<Song> order) {
+        // Ties fall back to insertion order, which matches a stable sort of the old list.
+        this.tree = new TreeSet<>(order(order));
+    }
+
+    /** Orders entries by song, with ties falling back to insertion order. */
+    static Comparator<Entry> order(Comparator<Song> order) {
+        return Comparator.<Entry, Song>comparing(e -> e.song, order).thenComparingLong(e -> e.seq);
+    }
+
+    void add(Entry e) {
+        tree.add(e);
+        view = null;
+    }
+
+    void remove(Entry e) {
+        tree.remove(e);
+        view = null;
+    }
+
+    /** Live entries in index order. Read-only use. */
+    Collection<Entry> entries() {
+        return Collections.unmodifiableSet(tree);
+    }
+
+    /** Songs in index order, read straight from the tree without building the view. */
+    Iterable<Song> songs() {
+        return () -> new Iterator<Song>() {
+            private final Iterator<Entry> it = tree.iterator();
+
+            @Override
+            public boolean hasNext() { return it.hasNext(); }
+
+            @Override
+            public Song next() { return it.next().song; }
+        };
+    }
+
+    void clear() {
+        tree.clear();
+        view = null;
+    }
+
+    /** Songs in index order. O(n) after a change, O(1) otherwise. */
+    List<Song> view() {
+        if (view == null) {
+            List<Song> out = new ArrayList<>(tree.size());
+            for (Entry e : tree) out.add(e.song);
+            view = Collections.unmodifiableList(out);
+        }
+        return view;
+    }
+}
@@ -6,61 +6,331 @@ import java.util.stream.Collectors;
 
 /**
  * In-memory collection of songs with convenience query methods.
- * Keeps a private, mutable List and exposes read-only or copied views to callers.
+ * Every sort order the UI offers is kept as its own index and updated on add/remove,
+ * so the sorted views are read straight from the index instead of re-sorting the library.
  */
 public class SongLibrary {
-    // Internal storage. We keep it private to protect invariants.
-    private final List<Song> songs = new ArrayList<>();
+    /** Natural order: title, case insensitive. */
+    public static final Comparator<Song> BY_TITLE = Comparator.naturalOrder();
 
-    /** Adds a song to the library. */
-    public void add(Song s) { songs.add(s); }
+    /** Artist, then title, both case insensitive. */
+    public static final Comparator<Song> BY_ARTIST =
+            Comparator.comparing(Song::getArtist, String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(Song::getTitle, String.CASE_INSENSITIVE_ORDER);
+
+    /** Year descending, then title. */
+    public static final Comparator<Song> BY_YEAR_DESC =
+            Comparator.comparingInt(Song::getYear).reversed()
+                    .thenComparing(Song::getTitle, String.CASE_INSENSITIVE_ORDER);
+
+    /** Rating descending, then title. */
+    public static final Comparator<Song> BY_RATING_DESC =
+            Comparator.comparingInt(Song::getRating).reversed()
+                    .thenComparing(Song::getTitle, String.CASE_INSENSITIVE_ORDER);
+
+    // Insertion order is just another index, ordered by sequence number alone.
+    private final SongIndex insertionOrder = new SongIndex((a, b) -> 0);
+    private final SongIndex byTitle = new SongIndex(BY_TITLE);
+    private final SongIndex byArtist = new SongIndex(BY_ARTIST);
+    private final SongIndex byYear = new SongIndex(BY_YEAR_DESC);
+    private final SongIndex byRating = new SongIndex(BY_RATING_DESC);
+    private final SongIndex[] indexes = {insertionOrder, byTitle, byArtist, byYear, byRating};
+    private final SubstringIndex substrings = new SubstringIndex();
+
+    // Equal songs (same title and artist, case insensitive) share a bucket, oldest first.
+    // Finding a song is one hash lookup; removing it then costs O(log n) in the sorted indexes.
+    private final Map<Song, ArrayDeque<SongIndex.Entry>> entries = new HashMap<>();
+    private final DuplicatePolicy policy;
+    private long nextSeq;
+    private int size;
+    private long version; // Bumped on every change so callers can tell when a view is stale
+    private final List<Listener> listeners = new ArrayList<>();
+
+    /** Told about every change, on the thread that made it, after the library is updated. */
+    public interface Listener {
+        void added(Song s);
+
+        /** The song actually removed, which equals but may not be the one passed to remove. */
+        void removed(Song s);
+    }
+
+    /** What add does with a song equal to one already in the library. */
+    public enum DuplicatePolicy {
+        /** Equal songs live side by side, like the old List-backed library. */
+        ALLOW,
+        /** The new song is not added. */
+        REJECT,
+        /** The old song is removed and the new one added in its place. */
+        REPLACE,
+        /** Like REPLACE if the new song is rated higher, otherwise like REJECT. */
+        KEEP_HIGHEST_RATING
+    }
+
+    /** A library that keeps duplicates, as it always has. */
+    public SongLibrary() {
+        this(DuplicatePolicy.ALLOW);
+    }
+
+    public SongLibrary(DuplicatePolicy policy) {
+        this.policy = Objects.requireNonNull(policy, "policy");
+    }
+
+    public DuplicatePolicy duplicatePolicy() { return policy; }
+
+    /** Registers a listener for later adds and removes. */
+    public void addListener(Listener l) {
+        listeners.add(Objects.requireNonNull(l, "listener"));
+    }
+
+    /**
+     * Adds a song to the library, unless the duplicate policy turns it away.
+     * A replaced song is reported to listeners as a remove followed by an add, and the new
+     * song goes to the end of the insertion order.
+     * Returns true if the library changed. O(log n).
+     */
+    public boolean add(Song s) {
+        Objects.requireNonNull(s, "song");
+        if (policy != DuplicatePolicy.ALLOW) {
+            ArrayDeque<SongIndex.Entry> bucket = entries.get(s);
+            if (bucket != null) {
+                Song old = bucket.peekFirst().song;
+                if (policy == DuplicatePolicy.REJECT) return false;
+                if (policy == DuplicatePolicy.KEEP_HIGHEST_RATING && s.getRating() <= old.getRating()) return false;
+                remove(old);
+            }
+        }
+        SongIndex.Entry e = new SongIndex.Entry(s, nextSeq++);
+        entries.computeIfAbsent(s, k -> new ArrayDeque<>(1)).addLast(e);
+        for (SongIndex index : indexes) index.add(e);
+        substrings.add(e);
+        size++;
+        version++;
+        for (Listener l : listeners) l.added(s);
+        return true;
+    }
 
     /**
      * Removes a song from the library.
-     * Returns true if the item was found and removed.
+     * Like List.remove, the oldest song equal to the argument goes first.
+     * Returns true if the item was found and removed. O(log n).
+     */
+    public boolean remove(Song s) {
+        ArrayDeque<SongIndex.Entry> bucket = entries.get(s);
+        if (bucket == null) return false;
+        SongIndex.Entry e = bucket.pollFirst();
+        if (bucket.isEmpty()) entries.remove(s);
+        for (SongIndex index : indexes) index.remove(e);
+        substrings.remove(e);
+        size--;
+        version++;
+        for (Listener l : listeners) l.removed(e.song);
+        return true;
+    }
+
+    /** True if a song with the same title and artist, ignoring case, is in the library. O(1). */
+    public boolean contains(Song s) {
+        return entries.containsKey(s);
+    }
+
+    /** Number of songs in the library. */
+    public int size() { return size; }
+
+    /**
+     * Modification counter. Two reads that return the same version saw the same songs,
+     * so a result computed from one of them can be reused.
      */
-    public boolean remove(Song s) { return songs.remove(s); }
+    public long version() { return version; }
 
     /**
-     * Read-only view of the list to prevent outside code from modifying internal state.
+     * Read-only list of the songs in insertion order.
      * Callers can iterate, but cannot add or remove.
      */
-    public List<Song> all() { return Collections.unmodifiableList(songs); }
+    public List<Song> all() { return insertionOrder.view(); }
 
     /**
      * Returns a new List with only the items that match the predicate.
      * Uses streams to keep the implementation concise and expressive.
      */
     public List<Song> filtered(Predicate<Song> p) {
-        return songs.stream().filter(p).collect(Collectors.toList());
+        return all().stream().filter(p).collect(Collectors.toList());
+    }
+
+    /**
+     * Songs whose title or artist contains the text, case insensitive, in the given order.
+     * Uses the trigram index, so only songs sharing every three-letter run of the text are
+     * checked. Texts under three characters fall back to checking every song.
+     */
+    public List<Song> search(String text, Comparator<Song> order) {
+        String query = SubstringIndex.fold(text);
+        Collection<SongIndex.Entry> candidates = substrings.candidates(query);
+        if (candidates == null) candidates = insertionOrder.entries();
+
+        List<SongIndex.Entry> hits = new ArrayList<>();
+        for (SongIndex.Entry e : candidates) {
+            if (e.song.containsFolded(query)) hits.add(e);
+        }
+        hits.sort(SongIndex.order(order));
+        List<Song> out = new ArrayList<>(hits.size());
+        for (SongIndex.Entry e : hits) out.add(e.song);
+        return out;
     }
 
-    /** Returns a new List sorted by the Song's natural order (title). */
-    public List<Song> sortedByTitle() {
-        return songs.stream().sorted().collect(Collectors.toList());
+    /**
+     * Search split in two, for callers that guard the library with a lock: this part reads
+     * the library and must hold the lock, but only takes O(trigrams) for a text the index can
+     * help with, or the cached sorted view otherwise (a whole search for an order without an
+     * index). The returned Search then runs without
+     * the lock. The library may change meanwhile, so check version() afterwards and throw the
+     * result away if it moved on.
+     */
+    public Search prepareSearch(String text, Comparator<Song> order) {
+        String query = SubstringIndex.fold(text);
+        SubstringIndex.Lists lists = substrings.lists(query);
+        if (lists != null) return new Search(query, order, lists, null);
+        SongIndex index = indexFor(order);
+        List<Song> songs = index != null ? index.view() : search(text, order);
+        return new Search(query, order, null, songs);
     }
 
-    /** Returns a new List sorted by artist, then title, both case insensitive. */
-    public List<Song> sortedByArtist() {
-        return songs.stream()
-                .sorted(Comparator.comparing(Song::getArtist, String.CASE_INSENSITIVE_ORDER)
-                        .thenComparing(Song::getTitle, String.CASE_INSENSITIVE_ORDER))
-                .collect(Collectors.toList());
+    /** A search prepared by prepareSearch. */
+    public static final class Search {
+        private final String query;
+        private final Comparator<Song> order;
+        private final SubstringIndex.Lists lists; // Or null, and then
+        private final List<Song> songs;           // every song, already in order
+
+        private Search(String query, Comparator<Song> order, SubstringIndex.Lists lists, List<Song> songs) {
+            this.query = query;
+            this.order = order;
+            this.lists = lists;
+            this.songs = songs;
+        }
+
+        /** The matching songs in order, as search would return them. */
+        public List<Song> run() {
+            List<Song> out = new ArrayList<>();
+            if (lists == null) {
+                for (Song s : songs) {
+                    if (s.containsFolded(query)) out.add(s);
+                }
+                return out;
+            }
+            List<SongIndex.Entry> hits = new ArrayList<>();
+            for (SongIndex.Entry e : lists.intersect()) {
+                if (e.song.containsFolded(query)) hits.add(e);
+            }
+            hits.sort(SongIndex.order(order));
+            for (SongIndex.Entry e : hits) out.add(e.song);
+            return out;
+        }
     }
 
-    /** Returns a new List sorted by year descending, then title. */
-    public List<Song> sortedByYearDesc() {
-        return songs.stream()
-                .sorted(Comparator.comparingInt(Song::getYear).reversed()
-                        .thenComparing(Song::getTitle, String.CASE_INSENSITIVE_ORDER))
-                .collect(Collectors.toList());
+    /**
+     * Predicate form of search, for narrowing a list already in hand.
+     * The text is folded once; each song's folded text is cached on the song.
+     */
+    public static Predicate<Song> containing(String text) {
+        String query = SubstringIndex.fold(text);
+        return s -> s.containsFolded(query);
+    }
+
+    /** The first k songs in the given order. See page. */
+    public List<Song> top(int k, Comparator<Song> order) {
+        return page(0, k, order, s -> true);
     }
 
-    /** Returns a new List sorted by rating descending, then title. */
-    public List<Song> sortedByRatingDesc() {
-        return songs.stream()
-                .sorted(Comparator.comparingInt(Song::getRating).reversed()
-                        .thenComparing(Song::getTitle, String.CASE_INSENSITIVE_ORDER))
-                .collect(Collectors.toList());
+    /** The first k songs in the given order that match the filter. See page. */
+    public List<Song> top(int k, Comparator<Song> order, Predicate<Song> filter) {
+        return page(0, k, order, filter);
+    }
+
+    /**
+     * One page of the songs that match the filter, in the given order: skips offset matches
+     * and returns at most limit, without sorting the whole library.
+     * The orders the library keeps an index for (BY_TITLE, BY_ARTIST, BY_YEAR_DESC,
+     * BY_RATING_DESC) are walked from the front of the index and stop once the page is full,
+     * O(offset + limit) when most songs match. Any other order takes one pass over the library
+     * with a bounded heap, O(n log(offset + limit)). Ties keep insertion order, as in the sorted views.
+     */
+    public List<Song> page(int offset, int limit, Comparator<Song> order, Predicate<Song> filter) {
+        SongIndex index = indexFor(order);
+        return index != null
+                ? scan(index.songs(), offset, limit, filter)
+                : select(insertionOrder.songs(), offset, limit, order, filter);
     }
+
+    /** The index kept in exactly this order, or null. */
+    private SongIndex indexFor(Comparator<Song> order) {
+        if (order == BY_TITLE) return byTitle;
+        if (order == BY_ARTIST) return byArtist;
+        if (order == BY_YEAR_DESC) return byYear;
+        if (order == BY_RATING_DESC) return byRating;
+        return null;
+    }
+
+    /** Page of songs that are already in order: skip offset matches, keep the next limit. */
+    static List<Song> scan(Iterable<Song> sorted, int offset, int limit, Predicate<Song> filter) {
+        checkPage(offset, limit);
+        List<Song> out = new ArrayList<>(Math.min(limit, 1024));
+        if (limit == 0) return out;
+        int skip = offset;
+        for (Song s : sorted) {
+            if (!filter.test(s)) continue;
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            out.add(s);
+            if (out.size() == limit) break;
+        }
+        return out;
+    }
+
+    /**
+     * Page of songs in any order, from songs in insertion order. A max-heap holds the best
+     * offset + limit matches seen so far; a song that does not beat the worst of them is
+     * dropped after one comparison.
+     */
+    static List<Song> select(Iterable<Song> inserted, int offset, int limit,
+                             Comparator<Song> order, Predicate<Song> filter) {
+        checkPage(offset, limit);
+        int keep = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        if (limit == 0) return new ArrayList<>();
+        Comparator<SongIndex.Entry> entryOrder = SongIndex.order(order);
+        PriorityQueue<SongIndex.Entry> heap = new PriorityQueue<>(Math.min(keep, 1024) + 1, entryOrder.reversed());
+        long seq = 0;
+        for (Song s : inserted) {
+            long at = seq++;
+            if (!filter.test(s)) continue;
+            if (heap.size() < keep) {
+                heap.add(new SongIndex.Entry(s, at));
+            } else if (order.compare(s, heap.peek().song) < 0) {
+                // A tie with the worst kept song loses: that song was inserted earlier
+                heap.poll();
+                heap.add(new SongIndex.Entry(s, at));
+            }
+        }
+        SongIndex.Entry[] best = heap.toArray(new SongIndex.Entry[0]);
+        Arrays.sort(best, entryOrder);
+        List<Song> out = new ArrayList<>(Math.max(0, best.length - offset));
+        for (int i = offset; i < best.length; i++) out.add(best[i].song);
+        return out;
+    }
+
+    private static void checkPage(int offset, int limit) {
+        if (offset < 0) throw new IllegalArgumentException("Offset must not be negative");
+        if (limit < 0) throw new IllegalArgumentException("Limit must not be negative");
+    }
+
+    /** Read-only List sorted by the Song's natural order (title). */
+    public List<Song> sortedByTitle() { return byTitle.view(); }
+
+    /** Read-only List sorted by artist, then title, both case insensitive. */
+    public List<Song> sortedByArtist() { return byArtist.view(); }
+
+    /** Read-only List sorted by year descending, then title. */
+    public List<Song> sortedByYearDesc() { return byYear.view(); }
+
+    /** Read-only List sorted by rating descending, then title. */
+    public List<Song> sortedByRatingDesc() { return byRating.view(); }
 }
@@ -0,0 +1,19 @@
+package JavaSongLibraryApp.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Symbol table for strings many songs share, such as artist names.
+ * Equal strings come back as one shared instance, so a name used by thousands of songs is
+ * stored once. Thread safe, since songs are also built off the EDT while loading.
+ * Entries are never dropped; distinct artists are few next to the songs that use them.
+ */
+final class StringPool {
+    private final ConcurrentHashMap<String, String> table = new ConcurrentHashMap<>();
+
+    /** The pooled instance equal to s, adding s itself if there is none yet. */
+    String intern(String s) {
+        String pooled = table.putIfAbsent(s, s);
+        return pooled != null ? pooled : s;
+    }
+}
@@ -0,0 +1,186 @@
+package JavaSongLibraryApp.model;
+
+import java.util.*;
+
+/**
+ * Trigram index over each song's case-folded title and artist.
+ * Every run of three characters maps to the songs whose text contains it, so a
+ * "contains" query only has to look at songs that hold all of the query's trigrams.
+ * Add and remove touch one posting list per trigram of the song.
+ *
+ * Posting lists are plain arrays in insertion (sequence) order, one reference per song,
+ * so they stay small enough for libraries in the millions. Removed songs are only flagged
+ * and get swept out of a list once they make up half of it.
+ */
+class SubstringIndex {
+    private final Map<Long, Posting> postings = new HashMap<>();
+
+    /** Case folding shared by the stored keys and the queries. */
+    static String fold(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /** Indexes a song. Entries must arrive in increasing sequence order, as SongLibrary hands them out. */
+    void add(SongIndex.Entry e) {
+        for (long t : trigrams(e.song)) {
+            postings.computeIfAbsent(t, k -> new Posting()).add(e);
+        }
+    }
+
+    void remove(SongIndex.Entry e) {
+        e.removed = true;
+        for (long t : trigrams(e.song)) {
+            Posting posting = postings.get(t);
+            if (posting == null) continue;
+            posting.dead++;
+            if (posting.live() == 0) postings.remove(t);
+            else posting.compactIfSparse();
+        }
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Songs holding every trigram of the folded query, by intersecting posting lists
+     * smallest first. A superset of the real matches, so callers still check contains.
+     * Returns null when the query is shorter than a trigram and the index cannot help.
+     */
+    Collection<SongIndex.Entry> candidates(String foldedQuery) {
+        Lists lists = lists(foldedQuery);
+        return lists == null ? null : lists.intersect();
+    }
+
+    /**
+     * The posting lists for the folded query's trigrams as they are now, or null when the
+     * query is shorter than a trigram. O(trigrams). A list's array is never written below
+     * its size once handed out (adds go past the end, sweeps build a new array), so the
+     * result can be intersected after the lock that guards the index is let go.
+     */
+    Lists lists(String foldedQuery) {
+        long[] grams = trigrams(foldedQuery);
+        if (grams.length == 0) return null;
+        Lists out = new Lists(grams.length);
+        for (int i = 0; i < grams.length; i++) {
+            Posting posting = postings.get(grams[i]);
+            if (posting == null) return new Lists(0); // Some trigram appears in no song at all
+            out.items[i] = posting.items;
+            out.sizes[i] = posting.size;
+            out.live[i] = posting.live();
+        }
+        return out;
+    }
+
+    /** Posting lists captured by lists(): each an array and how much of it was in use. */
+    static final class Lists {
+        private final SongIndex.Entry[][] items;
+        private final int[] sizes;
+        private final int[] live;
+
+        private Lists(int n) {
+            items = new SongIndex.Entry[n][];
+            sizes = new int[n];
+            live = new int[n];
+        }
+
+        /**
+         * Entries in every list, in sequence order, skipping removed ones. Every list is
+         * sorted by sequence number, so each one is walked forward only once.
+         */
+        List<SongIndex.Entry> intersect() {
+            int n = items.length;
+            if (n == 0) return new ArrayList<>();
+            Integer[] bySize = new Integer[n];
+            for (int i = 0; i < n; i++) bySize[i] = i;
+            Arrays.sort(bySize, Comparator.comparingInt(i -> live[i]));
+
+            SongIndex.Entry[] smallest = items[bySize[0]];
+            int[] cursor = new int[n];
+            List<SongIndex.Entry> out = new ArrayList<>(live[bySize[0]]);
+            outer:
+            for (int k = 0; k < sizes[bySize[0]]; k++) {
+                SongIndex.Entry e = smallest[k];
+                if (e.removed) continue;
+                for (int j = 1; j < n; j++) {
+                    int list = bySize[j];
+                    cursor[j] = seek(items[list], sizes[list], e.seq, cursor[j]);
+                    if (cursor[j] == sizes[list]) break outer; // Nothing larger left in this list
+                    if (items[list][cursor[j]].seq != e.seq) continue outer;
+                }
+                out.add(e);
+            }
+            return out;
+        }
+    }
+
+    /** First position at or after from whose sequence number is not below seq. Binary search. */
+    private static int seek(SongIndex.Entry[] items, int size, long seq, int from) {
+        int lo = from, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (items[mid].seq < seq) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Entries containing one trigram, in sequence order. May hold removed entries. */
+    private static final class Posting {
+        SongIndex.Entry[] items = new SongIndex.Entry[2];
+        int size;
+        int dead; // How many of the items are flagged removed
+
+        void add(SongIndex.Entry e) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = e;
+        }
+
+        int live() {
+            return size - dead;
+        }
+
+        /**
+         * Sweeps removed entries out once they are half the list, so removal stays amortized
+         * O(1). The live ones go to a new array, leaving any captured by lists() untouched.
+         */
+        void compactIfSparse() {
+            if (dead * 2 < size) return;
+            SongIndex.Entry[] kept = new SongIndex.Entry[Math.max(2, size - dead)];
+            int w = 0;
+            for (int r = 0; r < size; r++) {
+                if (!items[r].removed) kept[w++] = items[r];
+            }
+            items = kept;
+            size = w;
+            dead = 0;
+        }
+    }
+
+    /** Distinct trigrams of the song's folded title and artist. None span the two fields. */
+    private static long[] trigrams(Song s) {
+        String title = s.foldedTitle(), artist = s.foldedArtist();
+        long[] out = new long[Math.max(0, title.length() - 2) + Math.max(0, artist.length() - 2)];
+        int count = collect(title, out, 0);
+        count = collect(artist, out, count);
+        return Arrays.stream(out, 0, count).distinct().toArray();
+    }
+
+    /** Distinct trigrams of the text, each packed into a long key. */
+    private static long[] trigrams(String text) {
+        long[] out = new long[Math.max(0, text.length() - 2)];
+        int count = collect(text, out, 0);
+        return Arrays.stream(out, 0, count).distinct().toArray();
+    }
+
+    /** Writes the text's trigrams into out from position count on. Returns the new count. */
+    private static int collect(String text, long[] out, int count) {
+        for (int i = 0; i + 2 < text.length(); i++) {
+            char a = text.charAt(i), b = text.charAt(i + 1), c = text.charAt(i + 2);
+            // Multiplying by an odd constant is one-to-one, and it spreads the bits so that
+            // Long.hashCode does not fold the first and last character onto each other.
+            out[count++] = (((long) a << 32) | ((long) b << 16) | c) * 0x9E3779B97F4A7C15L;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,141 @@
+package JavaSongLibraryApp.persistence;
+
+import JavaSongLibraryApp.model.Song;
+import JavaSongLibraryApp.model.SongLibrary;
+import JavaSongLibraryApp.util.ValidationException;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saves a journal-mode library in the background, so the thread making changes never waits
+ * for the disk. Every change marks the library dirty; once changes stop for the quiet period,
+ * or the oldest unsaved change reaches the maximum delay, one writer thread syncs the journal
+ * to disk. A burst of edits therefore costs one sync, not one per edit. Folding the journal
+ * into a new snapshot stays with LibraryStorage's own compactor, except that compactNow
+ * starts one from the writer thread.
+ *
+ * Create it, and make changes, on the library's thread, after LibraryStorage.openJournal.
+ * If compactNow is used, make changes holding the library's monitor.
+ */
+public class AutoSaver implements SongLibrary.Listener {
+    /** Progress reports, for a status line. */
+    public interface Status {
+        /** There are changes not on disk yet. Called on the library's thread. */
+        void unsaved();
+
+        /**
+         * Every change up to now is on disk. At is System.currentTimeMillis() when the write
+         * finished; nanos is how long the write took. Called on the writer thread.
+         */
+        void saved(long at, long nanos);
+
+        /** A write failed; it is retried after the next change. Called on the writer thread. */
+        void failed(ValidationException e);
+    }
+
+    private final LibraryStorage storage;
+    private final SongLibrary library;
+    private final long quietNanos;
+    private final long maxDelayNanos;
+    private final Status status;
+    // Never interrupted: an interrupted sync would close the journal (see LibraryJournal.force)
+    private final ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "library-autosave");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicLong changes = new AtomicLong(); // Bumped on every change
+    private volatile long savedChanges;  // Changes covered by the last save, written by the writer thread
+    private volatile long lastChange;    // nanoTime of the newest change
+    private long firstUnsaved;           // nanoTime of the oldest change the scheduled save is for
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /** Starts following the library's changes. Its journal must already be open in storage. */
+    public AutoSaver(LibraryStorage storage, SongLibrary library, long quietMillis, long maxDelayMillis, Status status) {
+        this.storage = storage;
+        this.library = library;
+        this.quietNanos = TimeUnit.MILLISECONDS.toNanos(quietMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.status = status;
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        library.addListener(this);
+    }
+
+    @Override
+    public void added(Song s) { changed(); }
+
+    @Override
+    public void removed(Song s) { changed(); }
+
+    /**
+     * Marks the library dirty. The first change of a burst schedules a save; later ones only
+     * note the time, so a bulk import costs a volatile write per song, not a task.
+     */
+    private void changed() {
+        long now = System.nanoTime();
+        lastChange = now;
+        // Report only the first change since the last save, not every change of a bulk import
+        if (changes.incrementAndGet() - 1 == savedChanges) status.unsaved();
+        if (scheduled.compareAndSet(false, true)) {
+            firstUnsaved = now;
+            writer.schedule(this::due, quietNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Writer thread: saves once changes have paused, or the oldest one has waited long enough. */
+    private void due() {
+        long wait = Math.min(lastChange + quietNanos, firstUnsaved + maxDelayNanos) - System.nanoTime();
+        if (wait > 0) {
+            writer.schedule(this::due, wait, TimeUnit.NANOSECONDS);
+            return;
+        }
+        scheduled.set(false); // Before saving, so a change made during the save schedules another
+        save();
+    }
+
+    /**
+     * Folds the journal into a new snapshot and syncs it as soon as the writer thread is free,
+     * without waiting for the quiet period. The journal roll, its sync and the capture of the
+     * songs all run on the writer thread, holding the library's monitor, so changes made
+     * elsewhere must hold it too. A failure goes to the status like any other.
+     */
+    public void compactNow() {
+        writer.execute(() -> {
+            try {
+                synchronized (library) { storage.compact(library); }
+            } catch (ValidationException e) {
+                status.failed(e);
+                return;
+            }
+            save();
+        });
+    }
+
+    /** Writer thread: syncs the journal if anything changed since the last save. */
+    private void save() {
+        long upTo = changes.get();
+        if (upTo == savedChanges) return;
+        long t0 = System.nanoTime();
+        try {
+            storage.flush();
+            savedChanges = upTo;
+            status.saved(System.currentTimeMillis(), System.nanoTime() - t0);
+        } catch (ValidationException e) {
+            status.failed(e);
+        }
+    }
+
+    /**
+     * Writes whatever is still unsaved and stops the writer thread, waiting up to the given
+     * time for it. For shutdown; no more changes may be made afterwards.
+     */
+    public void close(long timeoutMillis) throws InterruptedException {
+        writer.execute(this::save);
+        writer.shutdown();
+        writer.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,212 @@
+package JavaSongLibraryApp.persistence;
+
+import JavaSongLibraryApp.model.Song;
+import JavaSongLibraryApp.model.SongLibrary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Crash-consistency check for journal mode. Forks a JVM that adds songs to a journaled
+ * library as fast as it can, compacting every so often, and kills it with destroyForcibly:
+ * at a random moment, while compact is rolling the journal, or while the background snapshot
+ * is being written and moved into place. The library is then reopened through
+ * LibraryStorage.openJournal and must hold exactly songs 0..n-1, with every song the child
+ * reported as added among them. Every other round the newest segment's last record is torn
+ * or has a byte flipped first, and replay must stop there, losing that one record and no other.
+ * Run from the IDE or with: java JavaSongLibraryApp.persistence.JournalCrashCheck [rounds]
+ */
+public class JournalCrashCheck {
+    private static final int COMPACT_EVERY = 2_000; // Songs added between compactions in the child
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("child")) {
+            child(Path.of(args[1]));
+            return;
+        }
+        int rounds = args.length >= 1 ? Integer.parseInt(args[0]) : 30;
+        Path dir = Files.createTempDirectory("songlib-crash");
+        Path file = dir.resolve("songs.lib");
+        Random rnd = new Random(42);
+        int[] killedIn = new int[3];
+        int snapshotsCut = 0, segmentsLeft = 0, torn = 0;
+        int recovered = 0;
+
+        for (int round = 0; round < rounds; round++) {
+            int mode = round % 3; // 0 any time, 1 during compact's roll, 2 during the snapshot write
+            int acked = runAndKill(dir, mode, 20 + rnd.nextInt(300), recovered);
+            killedIn[mode]++;
+            if (Files.exists(file.resolveSibling("songs.lib.tmp"))) snapshotsCut++;
+
+            int before = readOnly(file);
+            if (segmentsBelowCovered(file) > 0) segmentsLeft++;
+            if (acked > before) throw new IllegalStateException("Round " + round + ": song " + (acked - 1)
+                    + " was added but only " + before + " are on disk");
+            if (before > acked + 1) throw new IllegalStateException("Round " + round + ": " + before
+                    + " songs on disk, but at most " + (acked + 1) + " were being added");
+
+            int expected = before;
+            if (round % 2 == 1 && damageLastRecord(file, rnd.nextBoolean())) {
+                expected--;
+                torn++;
+            }
+
+            SongLibrary lib = new SongLibrary();
+            new LibraryStorage(file).openJournal(lib);
+            checkPrefix(lib, expected, round);
+            recovered = expected;
+        }
+        System.out.printf("%d rounds: killed %d at random, %d in roll, %d in snapshot write%n",
+                rounds, killedIn[0], killedIn[1], killedIn[2]);
+        System.out.printf("%d left a half-written snapshot, %d left folded segments behind, %d tails damaged%n",
+                snapshotsCut, segmentsLeft, torn);
+        System.out.println("Every added song was recovered, and nothing else.");
+
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Starts a child on the directory, which already holds the given number of songs, and
+     * kills it. Mode 0 kills the given time after the first add; 1 and 2 kill as soon as the
+     * child reports starting or finishing a compact call. Returns how many songs the library
+     * held once the last reported add returned.
+     */
+    private static int runAndKill(Path dir, int mode, long millis, int songs) throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                JournalCrashCheck.class.getName(), "child", dir.toString())
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        AtomicInteger acked = new AtomicInteger(songs);
+        CountDownLatch started = new CountDownLatch(1), trigger = new CountDownLatch(1);
+        String wanted = mode == 1 ? "C" : mode == 2 ? "c" : null;
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+                for (String line; (line = in.readLine()) != null; ) {
+                    if (line.equals(wanted)) trigger.countDown();
+                    else if (!line.equals("C") && !line.equals("c")) {
+                        acked.set(Integer.parseInt(line));
+                        started.countDown();
+                    }
+                }
+            } catch (IOException ignored) {
+                // The pipe breaks when the child dies
+            }
+        });
+        reader.start();
+        CountDownLatch await = wanted == null ? started : trigger;
+        if (!await.await(30, TimeUnit.SECONDS)) throw new IllegalStateException("Child never got going");
+        if (wanted == null) Thread.sleep(millis);
+        // Through the handle: Process.destroyForcibly also closes the pipe, losing unread acks
+        child.toHandle().destroyForcibly();
+        child.waitFor();
+        reader.join();
+        return acked.get();
+    }
+
+    /**
+     * Child side: reopens the library, then adds song after song, printing the library size
+     * after each add, and "C" and "c" around each compact call.
+     */
+    private static void child(Path dir) throws Exception {
+        PrintStream out = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+        SongLibrary lib = new SongLibrary();
+        LibraryStorage storage = new LibraryStorage(dir.resolve("songs.lib"));
+        storage.openJournal(lib);
+        for (int i = lib.size(); ; i++) {
+            lib.add(song(i));
+            out.println(i + 1);
+            out.flush();
+            if ((i + 1) % COMPACT_EVERY == 0) {
+                out.println("C");
+                out.flush();
+                storage.compact(lib);
+                out.println("c");
+                out.flush();
+            }
+        }
+    }
+
+    private static Song song(int i) {
+        return new Song("Song " + i, "Artist " + (i % 50), 1900 + i % 100, 1 + i % 5);
+    }
+
+    /** Songs on disk, read the way openJournal reads them but without opening a journal. */
+    private static int readOnly(Path file) throws Exception {
+        SongLibrary lib = new SongLibrary();
+        int covered = new LibraryStorage(file).streamSnapshot(4096, songs -> songs.forEach(lib::add));
+        for (int segment : LibraryJournal.segments(file)) {
+            if (segment > covered) LibraryJournal.replay(LibraryJournal.segmentPath(file, segment), lib);
+        }
+        return lib.size();
+    }
+
+    /** Segments the snapshot already covers, which the compactor deletes after the move. */
+    private static int segmentsBelowCovered(Path file) throws Exception {
+        int covered = new LibraryStorage(file).streamSnapshot(4096, songs -> { });
+        int n = 0;
+        for (int segment : LibraryJournal.segments(file)) if (segment <= covered) n++;
+        return n;
+    }
+
+    /**
+     * Damages the last whole record of the newest segment the snapshot does not cover: cuts
+     * a few bytes off its end, or flips a byte inside it so its CRC no longer matches. Anything
+     * a kill left after it goes too. Returns false if there is no such record.
+     */
+    private static boolean damageLastRecord(Path file, boolean truncate) throws Exception {
+        int covered = new LibraryStorage(file).streamSnapshot(4096, songs -> { });
+        List<Integer> segments = new ArrayList<>(LibraryJournal.segments(file));
+        for (int i = segments.size() - 1; i >= 0 && segments.get(i) > covered; i--) {
+            Path path = LibraryJournal.segmentPath(file, segments.get(i));
+            try (RandomAccessFile f = new RandomAccessFile(path.toFile(), "rw")) {
+                // Walk the length headers to the end of the last record that is all there
+                long length = f.length(), end = 0, last = -1;
+                while (end + 8 <= length) {
+                    f.seek(end);
+                    long next = end + 8 + f.readInt();
+                    if (next > length) break;
+                    last = end;
+                    end = next;
+                }
+                if (last < 0) continue;
+                if (truncate) {
+                    f.setLength(end - 3);
+                } else {
+                    f.setLength(end);
+                    f.seek(end - 2);
+                    int b = f.read();
+                    f.seek(end - 2);
+                    f.write(b ^ 0x20);
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static void checkPrefix(SongLibrary lib, int expected, int round) {
+        if (lib.size() != expected) {
+            throw new IllegalStateException("Round " + round + ": recovered " + lib.size() + " songs, expected " + expected);
+        }
+        for (int i = 0; i < expected; i++) {
+            if (!lib.contains(song(i))) throw new IllegalStateException("Round " + round + ": song " + i + " is missing");
+        }
+    }
+}
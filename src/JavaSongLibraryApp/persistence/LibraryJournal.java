@@ -0,0 +1,180 @@
+package JavaSongLibraryApp.persistence;
+
+import JavaSongLibraryApp.model.Song;
+import JavaSongLibraryApp.model.SongLibrary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of library changes, split into numbered segment files next to the snapshot
+ * (songs.lib.journal.1, .2, ...). Each record is
+ *
+ * <pre>
+ * int payload length, int CRC32 of payload
+ * payload: op byte (1 add, 2 remove), int year, int rating, title, artist
+ * </pre>
+ *
+ * with strings as an int byte length plus UTF-8. Records go straight to the channel, so a
+ * killed process loses nothing it already appended. A record cut short by a crash fails its
+ * length or checksum check, and replay stops there.
+ */
+final class LibraryJournal {
+    static final byte ADD = 1;
+    static final byte REMOVE = 2;
+    private static final int HEADER = 8; // Payload length + CRC32
+
+    private final Path snapshot;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buf = ByteBuffer.allocate(256);
+    private volatile FileChannel channel; // Read by force on other threads
+    private int segment;
+    private int records; // Appended to the current segment
+
+    /** Starts appending to a fresh segment with the given number. */
+    LibraryJournal(Path snapshot, int segment) throws IOException {
+        this.snapshot = snapshot;
+        open(segment);
+    }
+
+    int segment() { return segment; }
+
+    int records() { return records; }
+
+    void append(byte op, Song s) throws IOException {
+        byte[] title = s.getTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] artist = s.getArtist().getBytes(StandardCharsets.UTF_8);
+        int payload = 1 + 4 + 4 + 4 + title.length + 4 + artist.length;
+        if (buf.capacity() < HEADER + payload) buf = ByteBuffer.allocate(HEADER + payload);
+
+        buf.clear();
+        buf.position(HEADER);
+        buf.put(op).putInt(s.getYear()).putInt(s.getRating());
+        buf.putInt(title.length).put(title);
+        buf.putInt(artist.length).put(artist);
+        crc.reset();
+        crc.update(buf.array(), HEADER, payload);
+        buf.putInt(0, payload).putInt(4, (int) crc.getValue());
+        buf.flip();
+        while (buf.hasRemaining()) channel.write(buf);
+        records++;
+    }
+
+    /**
+     * Closes the current segment and starts the next one.
+     * Returns the number of the closed segment, which is complete from now on.
+     */
+    int roll() throws IOException {
+        int closed = segment;
+        FileChannel old = channel;
+        old.force(false); // So a force racing with the roll has nothing left to do here
+        // The next segment replaces the channel before the old one closes, so a force that
+        // finds its channel closed always finds a different one to retry on
+        open(segment + 1);
+        old.close();
+        return closed;
+    }
+
+    /**
+     * Forces appended records to the storage device. Safe to call from a thread other than
+     * the one appending: if the segment is rolled meanwhile, roll already forced it before
+     * switching channels, so only the new segment is left to force. Callers must not interrupt that thread, since an
+     * interrupted force closes the channel.
+     */
+    void force() throws IOException {
+        while (true) {
+            FileChannel c = channel;
+            try {
+                c.force(false);
+                return;
+            } catch (ClosedChannelException e) {
+                if (c == channel) throw e; // Closed for good, not rolled
+            }
+        }
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private void open(int n) throws IOException {
+        channel = FileChannel.open(segmentPath(snapshot, n), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment = n;
+        records = 0;
+    }
+
+    static Path segmentPath(Path snapshot, int n) {
+        return snapshot.resolveSibling(snapshot.getFileName() + ".journal." + n);
+    }
+
+    /** Numbers of the segment files that exist for this snapshot, in ascending order. */
+    static List<Integer> segments(Path snapshot) throws IOException {
+        String prefix = snapshot.getFileName() + ".journal.";
+        List<Integer> out = new ArrayList<>();
+        Path dir = snapshot.toAbsolutePath().getParent();
+        if (!Files.isDirectory(dir)) return out;
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix))
+                    .forEach(name -> {
+                        try {
+                            out.add(Integer.parseInt(name.substring(prefix.length())));
+                        } catch (NumberFormatException ignored) {
+                            // Not one of ours, e.g. an editor backup
+                        }
+                    });
+        }
+        out.sort(null);
+        return out;
+    }
+
+    /**
+     * Applies every intact record of one segment to the library, in order.
+     * Stops quietly at the first torn or corrupt record, which can only be the tail
+     * a crash interrupted. Returns the number of records applied.
+     */
+    static int replay(Path segmentFile, SongLibrary into) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(segmentFile));
+        CRC32 check = new CRC32();
+        int applied = 0;
+        while (in.remaining() >= HEADER) {
+            int start = in.position();
+            int payload = in.getInt();
+            int sum = in.getInt();
+            if (payload <= 0 || payload > in.remaining()) break;
+            check.reset();
+            check.update(in.array(), start + HEADER, payload);
+            if ((int) check.getValue() != sum) break;
+
+            byte op = in.get();
+            int year = in.getInt();
+            int rating = in.getInt();
+            String title = string(in);
+            String artist = string(in);
+            Song s = new Song(title, artist, year, rating);
+            if (op == ADD) into.add(s);
+            else if (op == REMOVE) into.remove(s);
+            else throw new IOException("Unknown journal record type " + op);
+            applied++;
+        }
+        return applied;
+    }
+
+    private static String string(ByteBuffer in) {
+        int len = in.getInt();
+        String s = new String(in.array(), in.position(), len, StandardCharsets.UTF_8);
+        in.position(in.position() + len);
+        return s;
+    }
+}
@@ -1,66 +1,350 @@
 package JavaSongLibraryApp.persistence;
 
+import JavaSongLibraryApp.model.ColumnarSongLibrary;
 import JavaSongLibraryApp.model.Song;
 import JavaSongLibraryApp.model.SongLibrary;
 import JavaSongLibraryApp.util.ValidationException;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
- * Handles persistence of the library to a local file using Java serialization.
- * The file is a binary .ser file stored under the user's home directory.
+ * Handles persistence of the library to a local file in a compact binary format (see SongFile).
+ * Files written by older versions with Java serialization are still readable, so an existing
+ * songs.ser is picked up on first load and replaced by the new format on the next save.
+ *
+ * In journal mode (openJournal) every add and remove is appended to a small journal instead
+ * of rewriting the file, and a background thread periodically folds the journal into a new
+ * snapshot. Startup loads the snapshot and replays whatever journal it does not cover yet.
  */
 public class LibraryStorage {
-    private final Path file; // Where we read and write the serialized data
+    // Journal records after which the next change triggers a background compaction. Large
+    // libraries wait until the journal is a quarter of their size, so bulk imports do not
+    // rewrite the whole snapshot every few thousand songs.
+    private static final int COMPACT_EVERY = 10_000;
+    private static final int COMPACT_FRACTION = 4;
+
+    private final Path file;       // Where we read and write the library
+    private final Path legacyFile; // Old serialized library to fall back on, may be null
+
+    // Journal mode state, only touched by whoever is changing the library, except flush
+    private volatile LibraryJournal journal;
+    private ExecutorService compactor;
+    private volatile Exception compactionFailure; // Set by the compactor, reported by flush
+    // A failed append: journaling stops until a compaction captures the whole library again
+    private volatile IOException journalFailure;
+    private final AtomicInteger compactionsQueued = new AtomicInteger();
 
     public LibraryStorage(Path file) {
+        this(file, null);
+    }
+
+    /**
+     * Storage that reads legacyFile when file does not exist yet.
+     * Saving always writes file, so the legacy copy is only ever read.
+     */
+    public LibraryStorage(Path file, Path legacyFile) {
         this.file = file;
+        this.legacyFile = legacyFile;
     }
 
     /**
      * Saves the given list of songs to disk.
+     * Writes to a temporary file first and moves it into place, so a failed save never
+     * leaves a half-written library behind.
      * Wraps IOExceptions into a checked ValidationException so callers must handle it.
+     * Not for journal mode, where the journal already holds every change; use compact there.
      */
     public void save(List<Song> songs) throws ValidationException {
+        if (journal != null) throw new IllegalStateException("Library is in journal mode");
+        writeSnapshot(songs, 0);
+    }
+
+    private void writeSnapshot(List<Song> songs, int coveredSegment) throws ValidationException {
         try {
             // Ensure the directory exists, so file output does not fail due to missing parent folders.
-            Files.createDirectories(file.getParent());
+            Files.createDirectories(file.toAbsolutePath().getParent());
         } catch (IOException e) {
             throw new ValidationException("Could not create directory", e);
         }
 
-        // Try-with-resources guarantees the stream is closed even if an exception is thrown.
-        try (ObjectOutputStream out = new ObjectOutputStream(
-                new BufferedOutputStream(Files.newOutputStream(file)))) {
-            out.writeObject(songs); // Serialize the entire list
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SongFile.write(songs, coveredSegment, ch);
+            ch.force(false);
+        } catch (IOException e) {
+            throw new ValidationException("Failed to save library", e);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             throw new ValidationException("Failed to save library", e);
         }
     }
 
     /**
-     * Loads songs from disk into a new SongLibrary.
+     * Loads songs from disk into a new SongLibrary, reading the file in buffered chunks.
      * If the file does not exist, returns an empty library.
      */
-    @SuppressWarnings("unchecked") // We know we wrote a List<Song>, so this cast is safe here.
     public SongLibrary load() throws ValidationException {
-        // First-run scenario. Nothing saved yet, so return an empty library.
-        if (!Files.exists(file)) return new SongLibrary();
+        SongLibrary lib = new SongLibrary();
+        readSnapshot(false, lib::add);
+        return lib;
+    }
+
+    /**
+     * Same as load, but maps the file into memory instead of copying it through a buffer.
+     * Faster for large libraries; the mapping is released once the library is built.
+     */
+    public SongLibrary loadMapped() throws ValidationException {
+        SongLibrary lib = new SongLibrary();
+        readSnapshot(true, lib::add);
+        return lib;
+    }
+
+    /**
+     * Writes the songs as a columnar file for ColumnarSongLibrary, for a read-mostly catalogue.
+     * Like save, it goes to a temporary file first and is moved into place.
+     */
+    public static void writeColumnar(List<Song> songs, Path target) throws ValidationException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ColumnarSongLibrary.write(songs, ch);
+                ch.force(false);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ValidationException("Failed to write columnar library", e);
+        }
+    }
+
+    /**
+     * Maps a file written by writeColumnar and reads it in place. The songs stay in the
+     * mapping, off the heap, and are only built as Song objects when read. The mapping
+     * lives as long as the returned library.
+     */
+    public static ColumnarSongLibrary mapColumnar(Path source) throws ValidationException {
+        try (FileChannel ch = FileChannel.open(source, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Columnar file too large to map");
+            return new ColumnarSongLibrary(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        } catch (IOException e) {
+            throw new ValidationException("Failed to open columnar library", e);
+        }
+    }
+
+    /**
+     * Reads the snapshot incrementally, handing songs over in chunks of up to chunkSize as
+     * they are decoded, so a caller can show the first ones long before the file is done.
+     * Runs on the calling thread and touches no library, so it is safe off the EDT.
+     * Returns the last journal segment the snapshot covers, for openJournal(into, covered).
+     */
+    public int streamSnapshot(int chunkSize, Consumer<List<Song>> chunks) throws ValidationException {
+        List<Song> batch = new ArrayList<>(chunkSize);
+        int covered = readSnapshot(true, s -> {
+            batch.add(s);
+            if (batch.size() == chunkSize) {
+                chunks.accept(List.copyOf(batch));
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) chunks.accept(List.copyOf(batch));
+        return covered;
+    }
 
-        // Read the serialized list and reconstruct the library.
+    /**
+     * Switches to journal mode. Loads the snapshot and replays the journal into the given
+     * library, then journals every later add and remove made on it.
+     * Those changes must come from one thread at a time, which is also where compact must be
+     * called; when that is more than one thread, such as AutoSaver.compactNow's, each holds
+     * the library's monitor.
+     */
+    public void openJournal(SongLibrary into) throws ValidationException {
+        openJournal(into, readSnapshot(true, into::add));
+    }
+
+    /**
+     * Second half of openJournal, for callers that streamed the snapshot into the library
+     * themselves: replays the journal segments after covered and starts journaling.
+     */
+    public void openJournal(SongLibrary into, int covered) throws ValidationException {
+        if (journal != null) throw new IllegalStateException("Journal already open");
+        int last = covered;
+        try {
+            for (int segment : LibraryJournal.segments(file)) {
+                Path path = LibraryJournal.segmentPath(file, segment);
+                if (segment <= covered) {
+                    // Already folded into the snapshot; the compactor died before deleting it
+                    Files.deleteIfExists(path);
+                } else {
+                    LibraryJournal.replay(path, into);
+                    last = segment;
+                }
+            }
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            journal = new LibraryJournal(file, last + 1);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ValidationException("Failed to replay library journal", e);
+        }
+
+        compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "library-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        into.addListener(new SongLibrary.Listener() {
+            @Override
+            public void added(Song s) { record(LibraryJournal.ADD, s, into); }
+
+            @Override
+            public void removed(Song s) { record(LibraryJournal.REMOVE, s, into); }
+        });
+    }
+
+    /**
+     * Appends one change, and starts a compaction once the current segment is long enough.
+     * Runs inside the library's listener, after the change is made, so it never throws: a
+     * failed append is kept for flush to report, and nothing more is journaled until a
+     * compaction writes out the whole library, which also covers the lost change.
+     */
+    private void record(byte op, Song s, SongLibrary lib) {
+        if (journalFailure != null) return;
+        try {
+            journal.append(op, s);
+        } catch (IOException e) {
+            journalFailure = e;
+            return;
+        }
+        int threshold = Math.max(COMPACT_EVERY, lib.size() / COMPACT_FRACTION);
+        // One compaction at a time is plenty; a busy compactor just lets the segment grow
+        if (journal.records() >= threshold && compactionsQueued.get() == 0) {
+            try {
+                compact(lib);
+            } catch (ValidationException e) {
+                compactionFailure = e;
+            }
+        }
+    }
+
+    /**
+     * Folds the journal into a fresh snapshot without blocking the caller.
+     * The current segment is closed and the library's contents captured right now; a
+     * background thread writes them to a temp file, moves it over the snapshot, and only
+     * then deletes the folded segments. A crash at any point leaves either the old snapshot
+     * with all its segments, or the new one, whose header says which segments to skip.
+     * After a failed append this is how journaling resumes: the new segment starts clean
+     * and the snapshot holds every change the journal missed.
+     */
+    public void compact(SongLibrary lib) throws ValidationException {
+        if (journal == null) throw new IllegalStateException("Journal not open");
+        int covered;
+        try {
+            covered = journal.roll();
+        } catch (IOException e) {
+            throw new ValidationException("Failed to start journal segment", e);
+        }
+        List<Song> songs = lib.all(); // Read-only snapshot, never modified once built
+        IOException recovering = journalFailure;
+        journalFailure = null;
+        compactionsQueued.incrementAndGet();
+        compactor.execute(() -> {
+            try {
+                writeSnapshot(songs, covered);
+                for (int segment : LibraryJournal.segments(file)) {
+                    if (segment <= covered) Files.deleteIfExists(LibraryJournal.segmentPath(file, segment));
+                }
+            } catch (ValidationException | IOException e) {
+                compactionFailure = e;
+                // The change the journal lost is still only in memory, so keep reporting it
+                if (recovering != null) journalFailure = recovering;
+            } finally {
+                compactionsQueued.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Forces the journal to the storage device, and reports a failed background compaction.
+     * A failed compaction loses nothing, since the journal segments stay until one succeeds.
+     * A failed append is reported on every flush until a compaction has caught up with it.
+     * Unlike the other journal methods this may run on any thread, such as AutoSaver's.
+     */
+    public void flush() throws ValidationException {
+        if (journal == null) throw new IllegalStateException("Journal not open");
+        IOException lost = journalFailure;
+        if (lost != null) {
+            throw new ValidationException("Library journal stopped after a failed write; save to retry", lost);
+        }
+        try {
+            journal.force();
+        } catch (IOException e) {
+            throw new ValidationException("Failed to flush library journal", e);
+        }
+        Exception failure = compactionFailure;
+        if (failure != null) {
+            compactionFailure = null;
+            throw new ValidationException("Background compaction failed", failure);
+        }
+    }
+
+    /** Hands the snapshot's songs to the sink in file order. Returns the last journal segment it covers. */
+    private int readSnapshot(boolean mapped, Consumer<Song> sink) throws ValidationException {
+        Path source = Files.exists(file) ? file : legacyFile;
+        // First-run scenario. Nothing saved yet, so there is nothing to add.
+        if (source == null || !Files.exists(source)) return 0;
+
+        try (FileChannel ch = FileChannel.open(source, StandardOpenOption.READ)) {
+            // Sniff the header: old files start with the Java serialization stream magic.
+            ByteBuffer head = ByteBuffer.allocate(SongFile.MAGIC.length);
+            while (head.hasRemaining() && ch.read(head) >= 0) { }
+            head.flip();
+            if (!SongFile.hasMagic(head)) {
+                loadSerialized(source, sink);
+                return 0;
+            }
+
+            ch.position(0);
+            if (mapped) {
+                if (ch.size() > Integer.MAX_VALUE) throw new IOException("Library file too large to map");
+                MappedByteBuffer whole = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                return SongFile.read(whole, sink);
+            }
+            return SongFile.read(ch, sink);
+        } catch (IOException | IllegalArgumentException e) {
+            // Convert low-level exceptions to a domain-specific checked exception.
+            // IllegalArgumentException means a record failed Song's validation.
+            throw new ValidationException("Failed to load library", e);
+        }
+    }
+
+    /**
+     * Reads a library written with Java serialization by earlier versions of the app. Each Song
+     * is rebuilt by its readResolve, so it is validated and its artist pooled like any other.
+     */
+    @SuppressWarnings("unchecked") // Old versions always wrote a List<Song>, so this cast is safe here.
+    private void loadSerialized(Path source, Consumer<Song> sink) throws ValidationException {
         try (ObjectInputStream in = new ObjectInputStream(
-                new BufferedInputStream(Files.newInputStream(file)))) {
+                new BufferedInputStream(Files.newInputStream(source)))) {
             Object obj = in.readObject();     // Expecting a List<Song>
-            SongLibrary lib = new SongLibrary();
             for (Song s : (List<Song>) obj) {
-                lib.add(s);
+                sink.accept(s);
             }
-            return lib;
         } catch (IOException | ClassNotFoundException e) {
-            // Convert low-level exceptions to a domain-specific checked exception.
             throw new ValidationException("Failed to load library", e);
         }
     }
@@ -0,0 +1,200 @@
+package JavaSongLibraryApp.persistence;
+
+import JavaSongLibraryApp.model.Song;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * The binary library file, version 2. All integers are unsigned varints (7 bits per byte,
+ * low bits first) and strings are a varint byte length followed by UTF-8.
+ *
+ * <pre>
+ * magic "SLIB", version byte
+ * journal segment covered (version 2 on; 0 when no journal has been folded in)
+ * artist count, then each distinct artist once
+ * song count, then per song: title, artist table index, year - 1900, rating
+ * </pre>
+ *
+ * Artists repeat heavily in a real library, so storing them once and referring to them by
+ * index keeps the file small. Reads and writes go through a ByteBuffer on a FileChannel.
+ */
+final class SongFile {
+    static final byte[] MAGIC = {'S', 'L', 'I', 'B'};
+    static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int YEAR_BASE = 1900;
+
+    private SongFile() { }
+
+    /** True if the buffer starts with this format's magic. Does not move the buffer's position. */
+    static boolean hasMagic(ByteBuffer head) {
+        if (head.remaining() < MAGIC.length) return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head.get(head.position() + i) != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    /** Writes every song to the channel, starting at its current position. */
+    static void write(List<Song> songs, FileChannel channel) throws IOException {
+        write(songs, 0, channel);
+    }
+
+    /**
+     * Writes a snapshot that already includes every journal segment up to and including
+     * coveredSegment, so a replay after loading it skips those segments.
+     */
+    static void write(List<Song> songs, int coveredSegment, FileChannel channel) throws IOException {
+        Map<String, Integer> artistIds = new LinkedHashMap<>();
+        for (Song s : songs) artistIds.putIfAbsent(s.getArtist(), artistIds.size());
+
+        Out out = new Out(channel);
+        out.bytes(MAGIC);
+        out.varint(VERSION);
+        out.varint(coveredSegment);
+        out.varint(artistIds.size());
+        for (String artist : artistIds.keySet()) out.string(artist);
+        out.varint(songs.size());
+        for (Song s : songs) {
+            out.string(s.getTitle());
+            out.varint(artistIds.get(s.getArtist()));
+            out.varint(s.getYear() - YEAR_BASE);
+            out.varint(s.getRating());
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a whole file from the channel in chunks, handing each song to the sink.
+     * Song's constructor re-validates every record, so a damaged file fails loudly.
+     * Returns the last journal segment the file covers.
+     */
+    static int read(FileChannel channel, Consumer<Song> sink) throws IOException {
+        return read(new In(channel, ByteBuffer.allocate(BUFFER_SIZE).limit(0)), sink);
+    }
+
+    /** Reads a file that is already entirely in memory, such as a mapped region. */
+    static int read(ByteBuffer whole, Consumer<Song> sink) throws IOException {
+        return read(new In(null, whole), sink);
+    }
+
+    private static int read(In in, Consumer<Song> sink) throws IOException {
+        in.require(MAGIC.length);
+        if (!hasMagic(in.buf)) throw new IOException("Not a song library file");
+        in.buf.position(in.buf.position() + MAGIC.length);
+        int version = in.varint();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported library file version " + version);
+        }
+        int coveredSegment = version >= 2 ? in.varint() : 0;
+
+        String[] artists = new String[in.varint()];
+        for (int i = 0; i < artists.length; i++) artists[i] = in.string();
+
+        int count = in.varint();
+        for (int i = 0; i < count; i++) {
+            String title = in.string();
+            int artist = in.varint();
+            if (artist >= artists.length) throw new IOException("Bad artist index " + artist);
+            int year = in.varint() + YEAR_BASE;
+            int rating = in.varint();
+            sink.accept(new Song(title, artists[artist], year, rating));
+        }
+        return coveredSegment;
+    }
+
+    /** Buffered writer that flushes to the channel whenever the buffer fills up. */
+    private static final class Out {
+        private final FileChannel channel;
+        private ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Out(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void varint(int v) throws IOException {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf.put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            buf.put((byte) v);
+        }
+
+        void string(String s) throws IOException {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            bytes(utf8);
+        }
+
+        void bytes(byte[] b) throws IOException {
+            ensure(b.length);
+            buf.put(b);
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            flush();
+            if (buf.capacity() < n) buf = ByteBuffer.allocate(n);
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) channel.write(buf);
+            buf.clear();
+        }
+    }
+
+    /** Reader over a buffer, refilled from the channel when it runs dry. No channel means no refills. */
+    private static final class In {
+        private final FileChannel channel;
+        private ByteBuffer buf;
+        private byte[] scratch = new byte[256];
+
+        In(FileChannel channel, ByteBuffer buf) {
+            this.channel = channel;
+            this.buf = buf;
+        }
+
+        int varint() throws IOException {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (!buf.hasRemaining()) require(1);
+                byte b = buf.get();
+                v |= (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        String string() throws IOException {
+            int len = varint();
+            require(len);
+            if (scratch.length < len) scratch = new byte[Math.max(len, scratch.length * 2)];
+            buf.get(scratch, 0, len);
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        /** Makes sure n bytes are buffered, reading more from the channel if needed. */
+        void require(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            if (channel == null) throw new EOFException("Truncated library file");
+            if (buf.capacity() < n) {
+                ByteBuffer bigger = ByteBuffer.allocate(n);
+                bigger.put(buf).flip();
+                buf = bigger;
+            }
+            buf.compact();
+            while (buf.position() < n) {
+                if (channel.read(buf) < 0) throw new EOFException("Truncated library file");
+            }
+            buf.flip();
+        }
+    }
+}
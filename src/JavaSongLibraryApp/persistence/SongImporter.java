@@ -0,0 +1,287 @@
+package JavaSongLibraryApp.persistence;
+
+import JavaSongLibraryApp.model.Song;
+import JavaSongLibraryApp.model.SongLibrary;
+import JavaSongLibraryApp.util.ValidationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Bulk import of songs from a CSV or TSV catalogue dump, one song per line:
+ * title, artist, year, rating. A first line that reads "title, artist, ..." is skipped, as is
+ * a UTF-8 byte order mark before it.
+ * CSV fields may be wrapped in double quotes to hold the delimiter, with "" for a quote;
+ * a quoted field cannot span lines.
+ *
+ * The file is cut into chunks at line boundaries, each chunk is read with a positional
+ * channel read and parsed on a fork-join pool, and the results are handed on in file order.
+ * Only a couple of chunks per pool thread are read ahead of the sink, so a large file never
+ * sits in memory whole.
+ * Every row goes through Song's constructor, so the same rules apply as for the Add form.
+ * A bad row is recorded with its line number and skipped; it never aborts the import.
+ */
+public class SongImporter {
+    /** Rejected rows kept in the report; the rest are only counted. */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int BATCH_SIZE = 10_000;
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final byte delimiter;
+    private final ForkJoinPool pool;
+
+    public SongImporter(char delimiter) {
+        this(delimiter, ForkJoinPool.commonPool());
+    }
+
+    public SongImporter(char delimiter, ForkJoinPool pool) {
+        if (delimiter > 0x7F) throw new IllegalArgumentException("Delimiter must be ASCII");
+        this.delimiter = (byte) delimiter;
+        this.pool = pool;
+    }
+
+    /** Importer for the file's extension: tab separated for .tsv and .tab, comma otherwise. */
+    public static SongImporter forFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return new SongImporter(name.endsWith(".tsv") || name.endsWith(".tab") ? '\t' : ',');
+    }
+
+    /** One rejected row. */
+    public static final class LineError {
+        private final long line;
+        private final String message;
+
+        LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() { return line; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() { return "line " + line + ": " + message; }
+    }
+
+    /** Outcome of an import. */
+    public static final class Report {
+        private final long rows;
+        private final long imported;
+        private final long errorCount;
+        private final List<LineError> errors;
+        private final long nanos;
+
+        Report(long rows, long imported, long errorCount, List<LineError> errors, long nanos) {
+            this.rows = rows;
+            this.imported = imported;
+            this.errorCount = errorCount;
+            this.errors = Collections.unmodifiableList(errors);
+            this.nanos = nanos;
+        }
+
+        /** Data rows seen, not counting blank lines and the header. */
+        public long getRows() { return rows; }
+        public long getImported() { return imported; }
+        public long getErrorCount() { return errorCount; }
+
+        /** The first MAX_REPORTED_ERRORS rejected rows, in file order. */
+        public List<LineError> getErrors() { return errors; }
+
+        public double getSeconds() { return nanos / 1e9; }
+        public double getRowsPerSecond() { return nanos == 0 ? 0 : rows / getSeconds(); }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows, %d imported, %d rejected, %.2f s, %.0f rows/s",
+                    rows, imported, errorCount, getSeconds(), getRowsPerSecond());
+        }
+    }
+
+    /** Imports straight into a library, on the calling thread. */
+    public Report importInto(Path file, SongLibrary library) throws ValidationException {
+        return importFile(file, batch -> {
+            for (Song s : batch) library.add(s);
+        });
+    }
+
+    /**
+     * Parses the file in parallel and hands the valid songs to the sink in batches, in file
+     * order, on the calling thread. Later chunks keep parsing while the sink works, up to two
+     * per pool thread; the next one starts as the sink takes one.
+     */
+    public Report importFile(Path file, Consumer<List<Song>> batches) throws ValidationException {
+        long t0 = System.nanoTime();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            int maxInFlight = 2 * pool.getParallelism();
+            ArrayDeque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+            long start = 0, size = ch.size();
+
+            long rows = 0, imported = 0, errorCount = 0, lineBase = 0;
+            List<LineError> errors = new ArrayList<>();
+            while (true) {
+                while (start < size && inFlight.size() < maxInFlight) {
+                    long end = lineBoundary(ch, Math.min(start + CHUNK_SIZE, size), size);
+                    long from = start;
+                    boolean first = from == 0;
+                    inFlight.add(pool.submit(() -> parse(ch, from, end, first)));
+                    start = end;
+                }
+                if (inFlight.isEmpty()) break;
+                Chunk c = inFlight.poll().join();
+                for (LineError e : c.errors) {
+                    if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new LineError(lineBase + e.line, e.message));
+                }
+                errorCount += c.errors.size();
+                rows += c.rows;
+                lineBase += c.lines;
+                for (int i = 0; i < c.songs.size(); i += BATCH_SIZE) {
+                    batches.accept(c.songs.subList(i, Math.min(i + BATCH_SIZE, c.songs.size())));
+                }
+                imported += c.songs.size();
+            }
+            return new Report(rows, imported, errorCount, errors, System.nanoTime() - t0);
+        } catch (IOException e) {
+            throw new ValidationException("Failed to import " + file.getFileName(), e);
+        } catch (RuntimeException e) {
+            // join rethrows a chunk's IOException wrapped in a RuntimeException
+            if (e.getCause() instanceof IOException) {
+                throw new ValidationException("Failed to import " + file.getFileName(), e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    /** Parsed contents of one chunk. Line numbers in errors are relative to the chunk. */
+    private static final class Chunk {
+        final List<Song> songs = new ArrayList<>();
+        final List<LineError> errors = new ArrayList<>();
+        long lines;
+        long rows;
+    }
+
+    /** First offset at or after pos that starts a line, or size. */
+    private static long lineBoundary(FileChannel ch, long pos, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        while (pos < size) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private Chunk parse(FileChannel ch, long from, long to, boolean first) throws IOException {
+        byte[] bytes = new byte[(int) (to - from)];
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) {
+            // Positional reads leave the channel's own position alone, so chunks can share it
+            if (ch.read(buf, from + buf.position()) < 0) break;
+        }
+
+        Chunk c = new Chunk();
+        List<String> fields = new ArrayList<>(4);
+        // A BOM would otherwise end up in the first field and hide the header
+        int lineStart = first && startsWith(bytes, BOM) ? BOM.length : 0;
+        while (lineStart < bytes.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < bytes.length && bytes[lineEnd] != '\n') lineEnd++;
+            int next = lineEnd + 1;
+            if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') lineEnd--;
+            c.lines++;
+
+            if (lineEnd > lineStart) {
+                String error = split(bytes, lineStart, lineEnd, fields);
+                boolean header = first && c.lines == 1 && fields.size() > 0
+                        && fields.get(0).trim().equalsIgnoreCase("title");
+                if (!header) {
+                    c.rows++;
+                    if (error == null) error = addSong(fields, c.songs);
+                    if (error != null) c.errors.add(new LineError(c.lines, error));
+                }
+            }
+            lineStart = next;
+        }
+        return c;
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    /** Builds the song for one row, or returns why it was rejected. */
+    private static String addSong(List<String> fields, List<Song> out) {
+        if (fields.size() != 4) return "Expected 4 fields, found " + fields.size();
+        int year, rating;
+        try {
+            year = Integer.parseInt(fields.get(2).trim());
+        } catch (NumberFormatException e) {
+            return "Year must be a whole number";
+        }
+        try {
+            rating = Integer.parseInt(fields.get(3).trim());
+        } catch (NumberFormatException e) {
+            return "Rating must be a whole number";
+        }
+        try {
+            out.add(new Song(fields.get(0), fields.get(1), year, rating));
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage(); // Same message the Add form shows
+        }
+    }
+
+    /** Splits one line into fields. Returns an error message for a malformed line, else null. */
+    private String split(byte[] b, int from, int to, List<String> fields) {
+        fields.clear();
+        int i = from;
+        while (true) {
+            if (i < to && b[i] == '"') {
+                // Quoted field: runs to the next quote not doubled
+                int start = ++i;
+                boolean escaped = false;
+                while (true) {
+                    if (i >= to) return "Unterminated quoted field";
+                    if (b[i] == '"') {
+                        if (i + 1 < to && b[i + 1] == '"') {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                String field = new String(b, start, i - start, StandardCharsets.UTF_8);
+                fields.add(escaped ? field.replace("\"\"", "\"") : field);
+                i++; // Closing quote
+                if (i < to && b[i] != delimiter) return "Unexpected text after quoted field";
+            } else {
+                int start = i;
+                while (i < to && b[i] != delimiter) i++;
+                fields.add(new String(b, start, i - start, StandardCharsets.UTF_8));
+            }
+            if (i >= to) return null;
+            i++; // Delimiter
+        }
+    }
+}
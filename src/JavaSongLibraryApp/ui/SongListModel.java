@@ -0,0 +1,56 @@
+package JavaSongLibraryApp.ui;
+
+import JavaSongLibraryApp.model.Song;
+
+import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
+import java.util.List;
+
+/**
+ * Read-only ListModel that shows a list of songs in place, without copying it.
+ * It is meant to wrap the read-only views SongLibrary hands out (a sorted index or a search
+ * result), so a million-row list costs the JList one reference, not a second copy of the rows.
+ * Paired with a fixed cell height on the JList, only the visible rows are ever asked for.
+ *
+ * Changes are coalesced: every replaceAll made during one pass of the EDT is applied together
+ * on the next pass, with one contentsChanged event plus one for any change in size, so the
+ * JList re-lays out once no matter how many updates arrive. Callers must hand over a list
+ * they no longer modify.
+ */
+public class SongListModel extends AbstractListModel<Song> {
+    private List<Song> songs = List.of();
+    private List<Song> pending; // Latest list waiting to be shown, null when up to date
+
+    @Override
+    public int getSize() { return songs.size(); }
+
+    @Override
+    public Song getElementAt(int index) { return songs.get(index); }
+
+    /** Schedules every row to be replaced. Later calls before the swap simply win. Call on the EDT. */
+    public void replaceAll(List<Song> next) {
+        boolean scheduled = pending != null;
+        pending = next;
+        if (!scheduled) SwingUtilities.invokeLater(this::flush);
+    }
+
+    /**
+     * Swaps in the latest list and notifies listeners: contentsChanged for the rows both lists
+     * have, then intervalAdded or intervalRemoved for the rows only one of them has. The swap
+     * and the events happen together, so the JList never sees a size it was not told about.
+     */
+    private void flush() {
+        List<Song> next = pending;
+        if (next == null) return;
+        pending = null;
+        int oldSize = songs.size(), newSize = next.size();
+        songs = next;
+        int common = Math.min(oldSize, newSize);
+        if (common > 0) fireContentsChanged(this, 0, common - 1);
+        if (newSize > oldSize) fireIntervalAdded(this, oldSize, newSize - 1);
+        else if (newSize < oldSize) fireIntervalRemoved(this, newSize, oldSize - 1);
+    }
+
+    /** The list currently shown. */
+    public List<Song> songs() { return songs; }
+}
@@ -1,17 +1,31 @@
 package JavaSongLibraryApp.ui;
 
 import JavaSongLibraryApp.model.Song;
+import JavaSongLibraryApp.model.SongFacets;
 import JavaSongLibraryApp.model.SongLibrary;
+import JavaSongLibraryApp.persistence.AutoSaver;
 import JavaSongLibraryApp.persistence.LibraryStorage;
+import JavaSongLibraryApp.persistence.SongImporter;
 import JavaSongLibraryApp.util.ValidationException;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
 
 /**
  * Main Swing window for managing the song library.
@@ -19,14 +33,34 @@ import java.util.concurrent.Callable;
  */
 public class SongManagerFrame extends JFrame {
     // Core model and persistence collaborator
-    private final SongLibrary library = new SongLibrary();
+    private final SongLibrary library = new SongLibrary(SongLibrary.DuplicatePolicy.REJECT);
+    private static final Path DATA_DIR = Path.of(System.getProperty("user.home"), ".songlib");
     private final LibraryStorage storage = new LibraryStorage(
-            Path.of(System.getProperty("user.home"), ".songlib", "songs.ser"));
+            DATA_DIR.resolve("songs.lib"), DATA_DIR.resolve("songs.ser"));
+    // Syncs the journal in the background once edits pause; created when the journal opens
+    private AutoSaver autoSaver;
+    private final JLabel statusLabel = new JLabel(" ");
+    private static final long AUTOSAVE_QUIET_MS = 1_000;
+    private static final long AUTOSAVE_MAX_DELAY_MS = 5_000;
+
+    // Running counts behind the facet sidebar, kept up to date by the library itself
+    private final SongFacets facets = new SongFacets(library);
 
     // UI model + component that displays Song objects
-    private final DefaultListModel<Song> listModel = new DefaultListModel<>();
+    private final SongListModel listModel = new SongListModel();
     private final JList<Song> songList = new JList<>(listModel);
 
+    // Filtering runs on a SwingWorker; the timer waits for a pause in typing before starting one
+    private final Timer filterDelay = new Timer(150, e -> refreshList());
+    private FilterWorker pendingFilter;
+
+    // Last finished query. When the filter text only grows, the next query narrows this result.
+    private String lastFilter = "";
+    private String lastSort;
+    private Facet lastFacet = Facet.ALL;
+    private long lastVersion = -1;
+    private List<Song> lastResult = List.of();
+
     // Input fields for new songs
     private final JTextField titleField = new JTextField();
     private final JTextField artistField = new JTextField();
@@ -39,8 +73,27 @@ public class SongManagerFrame extends JFrame {
             "Title", "Artist", "Year, high to low", "Rating, high to low"
     });
 
+    // Facet sidebar: pick a grouping, then a facet to show only its songs
+    private final JComboBox<String> facetGroup = new JComboBox<>(new String[]{"Decade", "Rating", "Artist"});
+    private final JList<Facet> facetList = new JList<>();
+    private long facetsVersion = -1;
+    private boolean updatingFacets; // Set while the sidebar is refilled, so its selection events are ignored
+    // Artists listed in the sidebar, most songs first
+    private static final int FACET_ARTISTS_SHOWN = 100;
+
+    // Editing buttons stay off until the library has loaded and the journal is open
+    private final JButton addBtn = new JButton("Add");
+    private final JButton saveBtn = new JButton("Save");
+    private final JButton importBtn = new JButton("Import...");
     // Delete button is enabled only when a list item is selected
     private final JButton deleteBtn = new JButton("Delete");
+    private boolean editable;
+
+    // Songs handed from the loader to the EDT per chunk, and the gap between list refreshes while loading
+    private static final int LOAD_CHUNK = 5_000;
+    private static final long LOAD_REFRESH_MS = 250;
+    // Rejected import rows listed in the summary dialog
+    private static final int IMPORT_ERRORS_SHOWN = 10;
 
     public SongManagerFrame() {
         super("Song Library");
@@ -68,9 +121,9 @@ public class SongManagerFrame extends JFrame {
         form.add(labeled("Rating 1..5", ratingSpinner));
 
         // Main action buttons
-        JButton addBtn = new JButton("Add");
-        JButton saveBtn = new JButton("Save");
-        JButton loadBtn = new JButton("Load");
+        addBtn.setEnabled(false);
+        saveBtn.setEnabled(false);
+        importBtn.setEnabled(false);
 
         JPanel topBar = new JPanel(new BorderLayout(8, 8));
         JPanel left = new JPanel(new BorderLayout(8, 8));
@@ -80,7 +133,7 @@ public class SongManagerFrame extends JFrame {
         JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
         buttons.add(addBtn);
         buttons.add(saveBtn);
-        buttons.add(loadBtn);
+        buttons.add(importBtn);
 
         // Delete starts disabled and lights up only with a selection
         deleteBtn.setEnabled(false);
@@ -98,17 +151,32 @@ public class SongManagerFrame extends JFrame {
 
         // List configuration
         songList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        // Every row is one line, so size them all from a prototype instead of measuring each
+        // row: the JList then lays out in O(1) and only renders the rows on screen
+        songList.setPrototypeCellValue(new Song("A typical song title here", "Some artist name", 2000, 5));
         JScrollPane scroll = new JScrollPane(songList);
 
-        // Frame layout, simple North + Center
+        // Facet sidebar on the left
+        facetList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        facetList.setPrototypeCellValue(new Facet("", "A long artist name, avg 5.0 (100000)", null));
+        JPanel sidebar = new JPanel(new BorderLayout(4, 4));
+        sidebar.add(labeled("Group by", facetGroup), BorderLayout.NORTH);
+        sidebar.add(new JScrollPane(facetList), BorderLayout.CENTER);
+
+        // Status line for autosave progress
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(0, 4, 4, 4));
+
+        // Frame layout, North + West + Center + South
         setLayout(new BorderLayout(8, 8));
         add(topBar, BorderLayout.NORTH);
+        add(sidebar, BorderLayout.WEST);
         add(scroll, BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
 
         // Hook up button actions
         addBtn.addActionListener(e -> onAdd());
         saveBtn.addActionListener(e -> onSave());
-        loadBtn.addActionListener(e -> loadFromDisk());
+        importBtn.addActionListener(e -> onImport());
         deleteBtn.addActionListener(e -> onDelete());
     }
 
@@ -128,17 +196,40 @@ public class SongManagerFrame extends JFrame {
         // Resort whenever the choice changes
         sortCombo.addActionListener(e -> refreshList());
 
-        // Re-filter on any text change
+        // Write out anything the autosave has not got to yet before the app exits
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (autoSaver == null) return;
+                try {
+                    autoSaver.close(2_000);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        // Regroup the sidebar, or show the chosen facet's songs
+        facetGroup.addActionListener(e -> {
+            facetsVersion = -1;
+            refreshList();
+        });
+        facetList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting() && !updatingFacets) refreshList();
+        });
+
+        // Re-filter on any text change, once typing pauses
+        filterDelay.setRepeats(false);
         filterField.getDocument().addDocumentListener(new DocumentListener() {
-            public void insertUpdate(DocumentEvent e) { refreshList(); }
-            public void removeUpdate(DocumentEvent e) { refreshList(); }
-            public void changedUpdate(DocumentEvent e) { refreshList(); }
+            public void insertUpdate(DocumentEvent e) { filterDelay.restart(); }
+            public void removeUpdate(DocumentEvent e) { filterDelay.restart(); }
+            public void changedUpdate(DocumentEvent e) { filterDelay.restart(); }
         });
 
         // Enable delete button only when a selection is finalized
         songList.addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
-                deleteBtn.setEnabled(!songList.isSelectionEmpty());
+                deleteBtn.setEnabled(editable && !songList.isSelectionEmpty());
             }
         });
     }
@@ -155,7 +246,13 @@ public class SongManagerFrame extends JFrame {
             int rating = (Integer) ratingSpinner.getValue();
 
             Song s = new Song(title, artist, year, rating); // May throw IllegalArgumentException
-            library.add(s);
+            boolean added;
+            synchronized (library) { added = library.add(s); }
+            if (!added) {
+                JOptionPane.showMessageDialog(this, "\"" + s.getTitle() + "\" by " + s.getArtist()
+                        + " is already in the library", "Duplicate song", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
             clearForm();
             refreshList();
         } catch (IllegalArgumentException ex) {
@@ -179,68 +276,381 @@ public class SongManagerFrame extends JFrame {
         );
         if (choice != JOptionPane.YES_OPTION) return;
 
-        library.remove(selected);
+        synchronized (library) { library.remove(selected); }
         refreshList();
         songList.clearSelection();
         deleteBtn.setEnabled(false);
     }
 
-    /** Saves the current in-memory list to disk, with user feedback. */
+    /**
+     * Saves right away instead of waiting for the autosave. The journal roll, the snapshot and
+     * the sync all happen on the autosave thread; the status line reports when they are done.
+     */
     private void onSave() {
-        handleUiErrors(() -> {
-            storage.save(library.all());
-            JOptionPane.showMessageDialog(this, "Saved successfully");
-            return null;
+        // Every change is already journaled; fold the journal into a snapshot and sync it
+        autoSaver.compactNow();
+    }
+
+    /** Starts autosaving, with its progress shown in the status line. Call once the journal is open. */
+    private void startAutoSave() {
+        SimpleDateFormat clock = new SimpleDateFormat("HH:mm:ss");
+        autoSaver = new AutoSaver(storage, library, AUTOSAVE_QUIET_MS, AUTOSAVE_MAX_DELAY_MS, new AutoSaver.Status() {
+            @Override
+            public void unsaved() {
+                showStatus("Unsaved changes", false);
+            }
+
+            @Override
+            public void saved(long at, long nanos) {
+                String text = String.format("Saved at %s, write took %.1f ms", clock.format(new Date(at)), nanos / 1e6);
+                SwingUtilities.invokeLater(() -> showStatus(text, false));
+            }
+
+            @Override
+            public void failed(ValidationException e) {
+                String cause = e.getCause() != null ? ": " + e.getCause().getMessage() : "";
+                SwingUtilities.invokeLater(() -> showStatus("Autosave failed, " + e.getMessage() + cause, true));
+            }
         });
     }
 
+    private void showStatus(String text, boolean error) {
+        statusLabel.setText(text);
+        statusLabel.setForeground(error ? Color.RED : UIManager.getColor("Label.foreground"));
+    }
+
     /**
-     * Loads songs from disk and replaces the in-memory list.
-     * Uses the helper that accepts a Callable so checked exceptions are allowed inside.
+     * Loads the saved library without blocking the window. A LoadWorker streams the snapshot
+     * in chunks off the EDT and the list fills in as they arrive; once the last one is in,
+     * the journal is replayed and editing is switched on.
      */
     private void loadFromDisk() {
-        handleUiErrors(() -> {
-            SongLibrary loaded = storage.load();
-            // Replace current displayed items
-            removeAllFromModel();
-            for (Song s : loaded.all()) {
-                library.add(s);
+        setTitle("Song Library, loading...");
+        new LoadWorker().execute();
+    }
+
+    /**
+     * Background job that produces songs in batches. Each batch is added to the library on
+     * the EDT, which stays the library's only writer, and the list is refreshed now and then.
+     */
+    private abstract class BatchWorker<T> extends SwingWorker<T, List<Song>> {
+        private final String activity;
+        private long lastRefresh;
+        int duplicates; // Songs the library turned away as already present
+
+        BatchWorker(String activity) {
+            this.activity = activity;
+        }
+
+        @Override
+        protected void process(List<List<Song>> chunks) {
+            synchronized (library) {
+                for (List<Song> chunk : chunks) {
+                    for (Song s : chunk) {
+                        if (!library.add(s)) duplicates++;
+                    }
+                }
+            }
+            setTitle("Song Library, " + activity + "... " + library.size() + " songs");
+            // Show the first chunk at once, then refresh now and then rather than per chunk
+            long now = System.currentTimeMillis();
+            if (now - lastRefresh >= LOAD_REFRESH_MS) {
+                lastRefresh = now;
+                refreshList();
             }
+        }
+
+        /** The job's result, or what went wrong in it rather than the wrapper around it. */
+        T result() throws Exception {
+            try {
+                return get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+                throw e;
+            }
+        }
+    }
+
+    /** Reads the snapshot in the background, then opens the journal. */
+    private class LoadWorker extends BatchWorker<Integer> {
+        LoadWorker() {
+            super("loading");
+        }
+
+        @Override
+        @SuppressWarnings("unchecked") // publish is varargs over a generic type
+        protected Integer doInBackground() throws Exception {
+            return storage.streamSnapshot(LOAD_CHUNK, chunk -> publish(chunk));
+        }
+
+        @Override
+        protected void done() {
+            setTitle("Song Library");
+            handleUiErrors(() -> {
+                int covered = result();
+                synchronized (library) { storage.openJournal(library, covered); }
+                startAutoSave();
+                editable = true;
+                addBtn.setEnabled(true);
+                saveBtn.setEnabled(true);
+                importBtn.setEnabled(true);
+                return null;
+            });
             refreshList();
-            return null;
-        });
+        }
+    }
+
+    /**
+     * Lets the user pick a CSV or TSV catalogue and imports it in the background.
+     * Rows are parsed in parallel; bad rows are skipped and listed at the end.
+     */
+    private void onImport() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV or TSV files", "csv", "tsv", "tab", "txt"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        importBtn.setEnabled(false);
+        new ImportWorker(chooser.getSelectedFile().toPath()).execute();
+    }
+
+    /** Runs a SongImporter off the EDT and reports how it went. */
+    private class ImportWorker extends BatchWorker<SongImporter.Report> {
+        private final Path file;
+
+        ImportWorker(Path file) {
+            super("importing");
+            this.file = file;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked") // publish is varargs over a generic type
+        protected SongImporter.Report doInBackground() throws Exception {
+            return SongImporter.forFile(file).importFile(file, batch -> publish(batch));
+        }
+
+        @Override
+        protected void done() {
+            setTitle("Song Library");
+            importBtn.setEnabled(true);
+            handleUiErrors(() -> {
+                SongImporter.Report report = result();
+                StringBuilder msg = new StringBuilder(report.toString());
+                if (duplicates > 0) msg.append('\n').append(duplicates).append(" already in the library, skipped");
+                List<SongImporter.LineError> errors = report.getErrors();
+                for (int i = 0; i < Math.min(IMPORT_ERRORS_SHOWN, errors.size()); i++) {
+                    msg.append('\n').append(errors.get(i));
+                }
+                if (report.getErrorCount() > IMPORT_ERRORS_SHOWN) msg.append("\n...");
+                JOptionPane.showMessageDialog(SongManagerFrame.this, msg, "Import finished",
+                        report.getErrorCount() == 0 ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+                return null;
+            });
+            refreshList();
+        }
     }
 
     /**
      * Rebuilds the JList based on the chosen sort and current filter text.
-     * Uses stream operations to derive a new view of the underlying library.
+     * The sorted view comes straight from the library's index; filtering it runs on a
+     * background worker so typing never waits for a scan. Any query still running is cancelled.
      */
     private void refreshList() {
-        List<Song> source;
+        filterDelay.stop();
+        if (pendingFilter != null) pendingFilter.cancel(false);
+
         String choice = (String) sortCombo.getSelectedItem();
+        String filter = filterField.getText().trim().toLowerCase();
+        long version = library.version();
+        Facet facet = refreshFacets();
+
+        if (filter.isEmpty() && facet == Facet.ALL) {
+            pendingFilter = null;
+            showResult(choice, filter, facet, version, sortedView(choice));
+            return;
+        }
+
+        // A longer filter can only match songs the shorter one matched, so search those instead
+        boolean narrowing = filter.startsWith(lastFilter) && facet.equals(lastFacet)
+                && choice.equals(lastSort) && version == lastVersion
+                && (!lastFilter.isEmpty() || facet != Facet.ALL);
+        pendingFilter = new FilterWorker(narrowing ? lastResult : null, filter, facet, choice, version);
+        pendingFilter.execute();
+    }
 
-        if ("Artist".equals(choice)) {
-            source = library.sortedByArtist();
-        } else if ("Year, high to low".equals(choice)) {
-            source = library.sortedByYearDesc();
-        } else if ("Rating, high to low".equals(choice)) {
-            source = library.sortedByRatingDesc();
+    /** One row of the facet sidebar: a label with its count, and the songs it stands for. */
+    private static final class Facet {
+        static final Facet ALL = new Facet("all", "All songs", null);
+
+        final String key; // Rows are rebuilt on every change; equal keys mean the same songs
+        final String label;
+        final Predicate<Song> filter; // Null for ALL
+
+        Facet(String key, String label, Predicate<Song> filter) {
+            this.key = key;
+            this.label = label;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Facet && key.equals(((Facet) o).key);
+        }
+
+        @Override
+        public int hashCode() { return key.hashCode(); }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    /**
+     * Refills the sidebar from the running counts if the library or grouping changed, keeping
+     * the selected facet if it still exists. Only reads counts, never the songs. Returns the
+     * selected facet.
+     */
+    private Facet refreshFacets() {
+        Facet selected = facetList.getSelectedValue();
+        if (selected == null) selected = Facet.ALL;
+        if (facetsVersion == library.version()) return selected;
+        facetsVersion = library.version();
+
+        List<Facet> rows = new ArrayList<>();
+        rows.add(Facet.ALL);
+        String group = (String) facetGroup.getSelectedItem();
+        if ("Rating".equals(group)) {
+            for (Map.Entry<Integer, Integer> e : facets.ratings().entrySet()) {
+                int rating = e.getKey();
+                rows.add(new Facet("rating " + rating, rating + " stars (" + e.getValue() + ")", s -> s.getRating() == rating));
+            }
+        } else if ("Artist".equals(group)) {
+            for (SongFacets.ArtistFacet a : facets.topArtists(FACET_ARTISTS_SHOWN)) {
+                String artist = a.getArtist();
+                rows.add(new Facet("artist " + artist.toLowerCase(), String.format("%s, avg %.1f (%d)", artist, a.getAverageRating(), a.getCount()),
+                        s -> s.getArtist().equalsIgnoreCase(artist)));
+            }
         } else {
-            source = library.sortedByTitle();
+            for (Map.Entry<Integer, Integer> e : facets.decades().entrySet()) {
+                int decade = e.getKey();
+                rows.add(new Facet("decade " + decade, decade + "s (" + e.getValue() + ")", s -> s.getYear() / 10 * 10 == decade));
+            }
         }
 
-        // Apply simple case-insensitive text filtering on title or artist
-        String filter = filterField.getText().trim().toLowerCase();
-        if (!filter.isEmpty()) {
-            source = source.stream()
-                    .filter(s -> s.getTitle().toLowerCase().contains(filter)
-                            || s.getArtist().toLowerCase().contains(filter))
-                    .toList();
+        updatingFacets = true;
+        try {
+            facetList.setListData(rows.toArray(new Facet[0]));
+            int at = rows.indexOf(selected);
+            facetList.setSelectedIndex(Math.max(at, 0));
+            return rows.get(Math.max(at, 0));
+        } finally {
+            updatingFacets = false;
         }
+    }
+
+    /** The library view for the chosen sort, read straight from its index. */
+    private List<Song> sortedView(String choice) {
+        if ("Artist".equals(choice)) return library.sortedByArtist();
+        if ("Year, high to low".equals(choice)) return library.sortedByYearDesc();
+        if ("Rating, high to low".equals(choice)) return library.sortedByRatingDesc();
+        return library.sortedByTitle();
+    }
 
-        // Push the derived list into the JList model
-        removeAllFromModel();
-        for (Song s : source) listModel.addElement(s);
+    /** The comparator behind each sort choice, for ordering search results the same way. */
+    private static Comparator<Song> sortOrder(String choice) {
+        if ("Artist".equals(choice)) return SongLibrary.BY_ARTIST;
+        if ("Year, high to low".equals(choice)) return SongLibrary.BY_YEAR_DESC;
+        if ("Rating, high to low".equals(choice)) return SongLibrary.BY_RATING_DESC;
+        return SongLibrary.BY_TITLE;
+    }
+
+    /** Remembers a finished query and pushes it into the JList in one event. */
+    private void showResult(String choice, String filter, Facet facet, long version, List<Song> result) {
+        lastSort = choice;
+        lastFilter = filter;
+        lastFacet = facet;
+        lastVersion = version;
+        lastResult = result;
+        songList.clearSelection();
+        listModel.replaceAll(result);
+    }
+
+    /**
+     * Applies simple case-insensitive text filtering on title or artist, and the sidebar's
+     * facet, off the EDT. A fresh query goes through the library's substring index, or walks
+     * the sorted view for a facet alone; a narrowing one re-checks the previous result,
+     * checking for cancellation as it goes so a stale query stops early.
+     *
+     * The EDT changes the library holding its monitor, so a fresh query holds it only to take
+     * what it reads (the posting lists, or a sorted view), then searches without it. If the
+     * library changed meanwhile the result is dropped and the query runs again.
+     */
+    private class FilterWorker extends SwingWorker<List<Song>, Void> {
+        private final List<Song> narrowFrom; // Previous result to narrow, or null to use the index
+        private final String filter;
+        private final Facet facet;
+        private final String choice;
+        private final long version;
+
+        FilterWorker(List<Song> narrowFrom, String filter, Facet facet, String choice, long version) {
+            this.narrowFrom = narrowFrom;
+            this.filter = filter;
+            this.facet = facet;
+            this.choice = choice;
+            this.version = version;
+        }
+
+        @Override
+        protected List<Song> doInBackground() {
+            Predicate<Song> matches = SongLibrary.containing(filter);
+            if (facet != Facet.ALL) matches = matches.and(facet.filter);
+            if (narrowFrom == null) {
+                List<Song> sorted = null;
+                SongLibrary.Search search = null;
+                synchronized (library) {
+                    if (library.version() != version) return null;
+                    if (filter.isEmpty()) sorted = sortedView(choice);
+                    else search = library.prepareSearch(filter, sortOrder(choice));
+                }
+                List<Song> found;
+                if (search == null) {
+                    found = keep(sorted, facet.filter);
+                } else {
+                    found = search.run();
+                    if (facet != Facet.ALL) found.removeIf(facet.filter.negate());
+                }
+                synchronized (library) {
+                    return library.version() == version ? found : null;
+                }
+            }
+            return keep(narrowFrom, matches);
+        }
+
+        /** The songs that match, in order, checking for cancellation as it goes. */
+        private List<Song> keep(List<Song> songs, Predicate<Song> matches) {
+            List<Song> out = new ArrayList<>();
+            int i = 0;
+            for (Song s : songs) {
+                if ((++i & 0xFFF) == 0 && isCancelled()) return out;
+                if (matches.test(s)) out.add(s);
+            }
+            return out;
+        }
+
+        @Override
+        protected void done() {
+            // A newer query has started since this one, so its result is no longer wanted
+            if (isCancelled() || pendingFilter != this) return;
+            pendingFilter = null;
+            handleUiErrors(() -> {
+                List<Song> result = get();
+                if (result == null) {
+                    // The library changed under the search; run it again once changes pause
+                    filterDelay.restart();
+                    return null;
+                }
+                // The worker's list is never touched again, so wrap it rather than copy it
+                showResult(choice, filter, facet, version, Collections.unmodifiableList(result));
+                return null;
+            });
+        }
     }
 
     /** Clears input fields and focuses title for quick data entry. */
@@ -252,11 +662,6 @@ public class SongManagerFrame extends JFrame {
         titleField.requestFocusInWindow();
     }
 
-    /** Utility to empty the JList model in one call. */
-    private void removeAllFromModel() {
-        listModel.clear();
-    }
-
     /**
      * Helper that executes a Callable and shows friendly dialogs for errors.
      * Callable<T> allows lambdas that throw checked exceptions like ValidationException.
@@ -0,0 +1,100 @@
+package Soccer_App;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The league behind the command line and the GUI: parses match lines, applies them, and
+ * answers questions about the ranked table, from any number of threads.
+ *
+ * One MatchParser and one LeagueTable, guarded by the engine's lock. A line is encoded into
+ * the parser's buffer, its team names are looked up by their bytes, and the two teams move
+ * to their new places in the table, so once every team has played, processing a line
+ * allocates nothing. LeagueEngineBenchmark measures that path.
+ */
+public class LeagueEngine {
+    private final LeagueTable table = new LeagueTable();
+    private final MatchParser parser = new MatchParser();
+    private final Recorder recorder = new Recorder();
+
+    /** Records parsed matches; a bad line stops with just the reason, as it is one line. */
+    private final class Recorder implements MatchParser.MatchSink {
+        @Override
+        public void match(String teamA, int goalsA, String teamB, int goalsB) {
+            table.recordMatch(teamA, goalsA, teamB, goalsB);
+        }
+
+        @Override
+        public void badLine(long lineNumber, String reason) {
+            throw new IllegalArgumentException(reason);
+        }
+    }
+
+    /**
+     * Parses "Team A 3, Team B 1" and applies it. A blank line does nothing; a bad one throws
+     * IllegalArgumentException saying what is wrong, and the table is unchanged.
+     */
+    public synchronized void processLine(CharSequence line) {
+        parser.parse(line, recorder);
+    }
+
+    /** Applies one result that is already parsed. */
+    public synchronized void recordMatch(String teamA, int goalsA, String teamB, int goalsB) {
+        table.recordMatch(teamA, goalsA, teamB, goalsB);
+    }
+
+    /**
+     * Reads every match in the file with the byte-level MatchParser, then applies them all
+     * at once. The file is parsed outside the lock, so readers do not wait on it. A bad line
+     * throws IllegalArgumentException naming the line, and nothing is applied.
+     */
+    public void processFile(Path file) throws IOException {
+        LeagueTable.Partial totals = new LeagueTable.Partial();
+        new MatchParser().parseFile(file, totals);
+        merge(totals);
+    }
+
+    /**
+     * Same as processFile, but parses chunks of the file in parallel on the pool, outside the
+     * lock, then merges their partial tables under it in one go. The resulting table is identical.
+     */
+    public void processFileParallel(Path file, ForkJoinPool pool) throws IOException {
+        List<LeagueTable.Partial> partials = new ParallelMatchProcessor(pool).parseFile(file);
+        synchronized (this) {
+            for (LeagueTable.Partial totals : partials) table.merge(totals);
+        }
+    }
+
+    /** Adds a partial table's totals, as LeagueTable.merge does. */
+    public synchronized void merge(LeagueTable.Partial totals) {
+        table.merge(totals);
+    }
+
+    /**
+     * Walks the table in order with shared ranks: 1,2,3,3,3,6. The lock is held throughout,
+     * so the rows are consistent; copy what is needed out of each Standing, do not keep it.
+     */
+    public synchronized void forEachRanked(LeagueTable.RankedRow row) {
+        table.forEachRanked(row);
+    }
+
+    /** The team's shared rank, or 0 if it has not played. */
+    public synchronized int rankOf(String team) {
+        return table.rankOf(team);
+    }
+
+    public synchronized int size() {
+        return table.size();
+    }
+
+    /** A copy of the table as it is now, for a reader that wants to take its time. */
+    public synchronized LeagueTable snapshot() {
+        return table.copy();
+    }
+
+    public synchronized void clear() {
+        table.clear();
+    }
+}
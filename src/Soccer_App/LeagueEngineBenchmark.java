@@ -0,0 +1,57 @@
+package Soccer_App;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Nanoseconds and bytes allocated per line for LeagueEngine.processLine, the path both the
+ * command line and the GUI take, on a generated season held in memory so no I/O is timed.
+ * Bytes come from the JVM's per-thread allocation counter, so they cover the parser, the
+ * team lookups and the table. Also checks the table against recording the same matches
+ * straight into a LeagueTable.
+ * Run with: java Soccer_App.LeagueEngineBenchmark [lines] [rounds] [teams]
+ */
+public class LeagueEngineBenchmark {
+    public static void main(String[] args) {
+        int lines = args.length >= 1 ? Integer.parseInt(args[0]) : 2_000_000;
+        int rounds = args.length >= 2 ? Integer.parseInt(args[1]) : 5;
+        int teams = args.length >= 3 ? Integer.parseInt(args[2]) : 40;
+
+        String[] clubs = new String[teams];
+        for (int i = 0; i < clubs.length; i++) clubs[i] = (i % 3 == 0 ? "FC Club " : "Club") + i;
+        String[] season = new String[lines];
+        LeagueTable expected = new LeagueTable();
+        Random rnd = new Random(42);
+        for (int i = 0; i < lines; i++) {
+            String a = clubs[rnd.nextInt(clubs.length)], b = clubs[rnd.nextInt(clubs.length)];
+            int ga = rnd.nextInt(6), gb = rnd.nextInt(6);
+            season[i] = a + " " + ga + ", " + b + " " + gb;
+            expected.recordMatch(a, ga, b, gb);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        System.out.printf("%,d lines, %d teams%n", lines, clubs.length);
+        for (int r = 1; r <= rounds; r++) {
+            LeagueEngine league = new LeagueEngine();
+            long bytes0 = threads.getThreadAllocatedBytes(thread);
+            long t0 = System.nanoTime();
+            for (String line : season) league.processLine(line);
+            long nanos = System.nanoTime() - t0;
+            long bytes = threads.getThreadAllocatedBytes(thread) - bytes0;
+            System.out.printf("round %d  %8.1f ns/line  %8.2f bytes/line  %,12.0f lines/s%n",
+                    r, (double) nanos / lines, (double) bytes / lines, lines / (nanos / 1e9));
+            if (!same(league.snapshot(), expected)) throw new IllegalStateException("Engine table differs");
+        }
+    }
+
+    /** Same teams in the same order, with the same record and form. */
+    private static boolean same(LeagueTable a, LeagueTable b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            LeagueTable.Standing s = a.standings().get(i), t = b.standings().get(i);
+            if (!s.getName().equals(t.getName()) || !s.summary().equals(t.summary())) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,110 @@
+package Soccer_App;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Subscriber side of LeagueFeedServer. Connects, sends SUBSCRIBE, and reads the snapshot and
+ * then every update on its own daemon thread, handing each to a Listener on that thread.
+ */
+public class LeagueFeedClient implements Closeable {
+
+    /** Called on the client's reader thread. A Swing client passes updates on to the EDT. */
+    public interface Listener {
+        /** The server's table when the subscription started, covering results up to seq. Called first, once. */
+        void snapshot(LeagueTable.Partial totals, long seq);
+
+        /** One result, with both teams' shared ranks after it; tag is "" when the feeder gave none. */
+        void update(long seq, String tag, int rankA, int rankB, String teamA, int goalsA, String teamB, int goalsB);
+
+        /** The connection ended: error is null if close was called. */
+        default void closed(IOException error) {
+        }
+    }
+
+    private final Socket socket;
+    private final Thread reader;
+    private volatile boolean closing;
+
+    private LeagueFeedClient(Socket socket, Listener listener) {
+        this.socket = socket;
+        reader = new Thread(() -> read(listener), "league-feed-client");
+        reader.setDaemon(true);
+    }
+
+    /** Connects and subscribes. Updates start arriving on the listener straight away. */
+    public static LeagueFeedClient subscribe(String host, int port, Listener listener) throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), 5000);
+        socket.setTcpNoDelay(true);
+        OutputStream out = socket.getOutputStream();
+        out.write("SUBSCRIBE\n".getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        LeagueFeedClient client = new LeagueFeedClient(socket, listener);
+        client.reader.start();
+        return client;
+    }
+
+    private void read(Listener listener) {
+        IOException error = null;
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 64 * 1024)) {
+            LeagueTable.Partial snapshot = new LeagueTable.Partial();
+            MatchParser parser = new MatchParser();
+            Update update = new Update(listener);
+            for (String line; (line = in.readLine()) != null; ) {
+                if (line.startsWith("D|")) {
+                    String[] f = line.split("\\|", 6);
+                    update.seq = Long.parseLong(f[1]);
+                    update.tag = f[2];
+                    update.rankA = Integer.parseInt(f[3]);
+                    update.rankB = Integer.parseInt(f[4]);
+                    parser.parse(ByteBuffer.wrap(f[5].getBytes(StandardCharsets.UTF_8)), true, update);
+                } else if (line.startsWith("S|")) {
+                    snapshot.addRow(line.substring(2));
+                } else if (line.startsWith("E|")) {
+                    listener.snapshot(snapshot, Long.parseLong(line.substring(2)));
+                    snapshot = null;
+                }
+            }
+            if (!closing) error = new EOFException("Server closed the feed");
+        } catch (IOException e) {
+            if (!closing) error = e;
+        } catch (RuntimeException e) {
+            error = new IOException("Bad line from the server: " + e.getMessage(), e);
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+        listener.closed(error);
+    }
+
+    /** Turns the match text of a D line back into a call to update. */
+    private static final class Update implements MatchParser.MatchSink {
+        private final Listener listener;
+        long seq;
+        String tag;
+        int rankA, rankB;
+
+        Update(Listener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void match(String teamA, int goalsA, String teamB, int goalsB) {
+            listener.update(seq, tag, rankA, rankB, teamA, goalsA, teamB, goalsB);
+        }
+    }
+
+    /** Disconnects. The listener's closed is called with no error. */
+    @Override
+    public void close() throws IOException {
+        closing = true;
+        socket.close();
+    }
+}
@@ -0,0 +1,149 @@
+package Soccer_App;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator for LeagueFeedServer: several feeders send tagged results, flat out or at a set rate,
+ * while one subscriber mirrors the table. Reports results per second, as seen by the
+ * subscriber, and the latency from a result being written by its feeder to its update being
+ * read by the subscriber. Feeders and subscriber share one clock, so they run in this JVM.
+ * Flat out (rate 0) the latency is mostly queueing; give a rate in results per second, split
+ * across the feeders, to see the latency below saturation.
+ * With no host it starts a server in this JVM on a free port.
+ * Run with: java Soccer_App.LeagueFeedLoadTest [feeders] [resultsPerFeeder] [rate] [host port]
+ */
+public class LeagueFeedLoadTest {
+    private static final int BATCH = 64; // Results per write
+    private static final String[] TEAMS = {
+            "Lions", "Tigers", "FC Awesome", "Grouches", "Liverpool", "ManchesterUnited",
+            "Tarantulas2", "Eagles", "Sharks", "Wolves", "Rovers", "United", "City", "Athletic",
+            "Wanderers", "Rangers", "Albion", "Hotspur", "Villa", "Forest"};
+
+    public static void main(String[] args) throws Exception {
+        int feeders = args.length >= 1 ? Integer.parseInt(args[0]) : 8;
+        int perFeeder = args.length >= 2 ? Integer.parseInt(args[1]) : 100_000;
+        int rate = args.length >= 3 ? Integer.parseInt(args[2]) : 0;
+        LeagueFeedServer local = null;
+        String host = "localhost";
+        int port;
+        if (args.length >= 5) {
+            host = args[3];
+            port = Integer.parseInt(args[4]);
+        } else {
+            local = new LeagueFeedServer(0);
+            port = local.getPort();
+            new Thread(local, "league-feed-server").start();
+        }
+
+        // Written by the feeder threads and the listener thread, read by others: atomics, so
+        // every read sees the write before it
+        AtomicLongArray[] sentAt = new AtomicLongArray[feeders];
+        for (int f = 0; f < feeders; f++) sentAt[f] = new AtomicLongArray(perFeeder);
+        AtomicLongArray latency = new AtomicLongArray(feeders * perFeeder);
+        AtomicInteger received = new AtomicInteger();
+        LeagueTable mirror = new LeagueTable();
+        CountDownLatch subscribed = new CountDownLatch(1), done = new CountDownLatch(1);
+
+        LeagueFeedClient client = LeagueFeedClient.subscribe(host, port, new LeagueFeedClient.Listener() {
+            @Override
+            public void snapshot(LeagueTable.Partial totals, long seq) {
+                mirror.merge(totals);
+                subscribed.countDown();
+            }
+
+            @Override
+            public void update(long seq, String tag, int rankA, int rankB, String teamA, int goalsA, String teamB, int goalsB) {
+                mirror.recordMatch(teamA, goalsA, teamB, goalsB);
+                int dash = tag.indexOf('-');
+                if (dash < 0) return; // Someone else's result
+                int feeder = Integer.parseInt(tag, 0, dash, 10);
+                int n = Integer.parseInt(tag, dash + 1, tag.length(), 10);
+                // Only this thread counts, so the slot is stored before the count covers it
+                latency.set(received.get(), System.nanoTime() - sentAt[feeder].get(n));
+                if (received.incrementAndGet() == latency.length()) done.countDown();
+            }
+
+            @Override
+            public void closed(IOException error) {
+                if (error != null) error.printStackTrace();
+                subscribed.countDown();
+                done.countDown();
+            }
+        });
+        subscribed.await();
+
+        String h = host;
+        Thread[] threads = new Thread[feeders];
+        long nanosPerBatch = rate <= 0 ? 0 : (long) (1e9 * BATCH * feeders / rate);
+        long t0 = System.nanoTime();
+        for (int f = 0; f < feeders; f++) {
+            int feeder = f;
+            threads[f] = new Thread(() -> feed(h, port, feeder, sentAt[feeder], t0, nanosPerBatch), "feeder-" + f);
+            threads[f].start();
+        }
+        for (Thread t : threads) t.join();
+        long sent = System.nanoTime() - t0;
+        if (!done.await(60, TimeUnit.SECONDS)) System.out.println("Timed out waiting for updates");
+        long total = System.nanoTime() - t0;
+        client.close();
+        if (local != null) local.close();
+
+        int n = received.get();
+        System.out.printf("%d feeders x %d results, %s, %d teams in the mirrored table%n", feeders, perFeeder,
+                rate <= 0 ? "flat out" : rate + " results/s offered", mirror.size());
+        System.out.printf("sent     %,12.0f results/s%n", feeders * (double) perFeeder / (sent / 1e9));
+        System.out.printf("applied  %,12.0f results/s  (%d of %d updates received)%n", n / (total / 1e9), n, latency.length());
+        if (n == 0) return;
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) sorted[i] = latency.get(i);
+        Arrays.sort(sorted);
+        System.out.printf("latency  p50 %.2f ms  p99 %.2f ms  p99.9 %.2f ms  max %.2f ms%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999), sorted[n - 1] / 1e6);
+    }
+
+    /** One feeder: random results tagged feeder-n, written BATCH at a time, one batch per nanosPerBatch if not 0. */
+    private static void feed(String host, int port, int feeder, AtomicLongArray sentAt, long start, long nanosPerBatch) {
+        Random rnd = new Random(feeder);
+        StringBuilder sb = new StringBuilder();
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+            for (int from = 0; from < sentAt.length(); from += BATCH) {
+                int to = Math.min(sentAt.length(), from + BATCH);
+                sb.setLength(0);
+                for (int i = from; i < to; i++) {
+                    int a = rnd.nextInt(TEAMS.length), b = (a + 1 + rnd.nextInt(TEAMS.length - 1)) % TEAMS.length;
+                    sb.append(feeder).append('-').append(i).append('|')
+                            .append(TEAMS[a]).append(' ').append(rnd.nextInt(5)).append(", ")
+                            .append(TEAMS[b]).append(' ').append(rnd.nextInt(5)).append('\n');
+                }
+                long now = System.nanoTime();
+                long due = start + (from / BATCH) * nanosPerBatch;
+                if (due > now) {
+                    LockSupport.parkNanos(due - now);
+                    now = System.nanoTime();
+                }
+                for (int i = from; i < to; i++) sentAt.set(i, now);
+                out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e6;
+    }
+}
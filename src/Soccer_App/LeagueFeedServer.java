@@ -0,0 +1,336 @@
+package Soccer_App;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Live match feed: a TCP server that takes match results from any number of feeders, keeps
+ * one LeagueTable, and pushes every change to subscribed clients such as SoccerLeagueGUI.
+ *
+ * Everything runs on one thread around a Selector, so the table has a single writer and needs
+ * no locks; results are applied in the order their lines arrive. Lines are parsed as bytes by
+ * MatchParser, straight out of each connection's read buffer.
+ *
+ * Line protocol, UTF-8, one command per line:
+ * <pre>
+ * client -> server
+ *   Team A 2, Team B 1          a result
+ *   tag|Team A 2, Team B 1      a result with a tag, echoed in its update (no '|' or ',' in tags)
+ *   SUBSCRIBE                   turn this connection into a subscriber
+ *   MATCHDAY                    end the current matchday (needs a MatchLog)
+ *   ASOF k                      ask for the table after result k (needs a MatchLog)
+ *   ASOFDAY n                   ask for the table at the end of matchday n (needs a MatchLog)
+ * server -> subscriber
+ *   S|won|drawn|lost|gf|ga|form|team   one row of the snapshot sent on SUBSCRIBE
+ *   E|seq                              end of the snapshot; it covers results up to seq
+ *   D|seq|tag|rankA|rankB|Team A 2, Team B 1   a result, with both teams' new shared ranks
+ *   M|matchday|seq                     a matchday ended after result seq
+ * server -> feeder
+ *   ERR|tag|reason              a line that was not a result, or a command that failed
+ *   S|...  E|k                  the answer to ASOF or ASOFDAY, framed like a snapshot
+ * </pre>
+ * A subscriber that replays the D lines into its own LeagueTable, on top of the snapshot, has
+ * the server's table; other teams' ranks follow from it, so updates stay two rows per result.
+ * A subscriber that falls more than MAX_BACKLOG bytes behind is dropped rather than letting
+ * its backlog grow without limit. Ask ASOF questions on a connection that is not subscribed.
+ *
+ * Given a MatchLog, the server starts from the table in it and logs every result it applies,
+ * handing the log to the OS after each select round; see MatchLog for what survives a crash.
+ */
+public class LeagueFeedServer implements Runnable, Closeable {
+    public static final int DEFAULT_PORT = 4343;
+    static final int MAX_LINE = 8 * 1024;
+    private static final int MAX_BACKLOG = 4 * 1024 * 1024;
+    private static final byte[] SUBSCRIBE = "SUBSCRIBE".getBytes(StandardCharsets.US_ASCII);
+
+    /** One client. Feeders and subscribers are the same until SUBSCRIBE. */
+    private static final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        ByteBuffer out = ByteBuffer.allocate(4096);
+        boolean subscriber;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final MatchLog log;      // Or null to keep nothing
+    private final LeagueTable table;
+    private final MatchParser parser = new MatchParser();
+    private final List<Connection> subscribers = new ArrayList<>();
+    private final Set<Connection> pending = new LinkedHashSet<>(); // Have output to write
+    private final Sink sink = new Sink();
+    private final StringBuilder line = new StringBuilder();
+    private volatile boolean running = true;
+    private long seq;        // Results applied so far
+
+    /** Listens on the port, or on any free port for 0. Call run to start serving. */
+    public LeagueFeedServer(int port) throws IOException {
+        this(port, null);
+    }
+
+    /** Like LeagueFeedServer(port), carrying on from the log's table and adding to it. The caller closes the log. */
+    public LeagueFeedServer(int port, MatchLog log) throws IOException {
+        this.log = log;
+        table = log != null ? log.table() : new LeagueTable();
+        seq = log != null ? log.size() : 0;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() { return server.socket().getLocalPort(); }
+
+    /** Results applied so far. Only exact on the server thread. */
+    public long getResults() { return seq; }
+
+    /** Serves until close is called. */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); ) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    try {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) accept();
+                        if (key.isValid() && key.isReadable()) read(key);
+                        if (key.isValid() && key.isWritable()) pending.add((Connection) key.attachment());
+                    } catch (IOException e) {
+                        drop(key);
+                    }
+                }
+                flush();
+                if (log != null) log.flush();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            if (running) e.printStackTrace();
+        } finally {
+            for (SelectionKey key : selector.keys()) closeQuietly(key.channel());
+            closeQuietly(selector);
+        }
+    }
+
+    /** Stops the server thread and closes every connection. */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = server.accept()) != null) {
+            ch.configureBlocking(false);
+            ch.socket().setTcpNoDelay(true);
+            ch.register(selector, SelectionKey.OP_READ, new Connection(ch));
+        }
+    }
+
+    /** Reads what has arrived and handles every complete line in it. */
+    private void read(SelectionKey key) throws IOException {
+        Connection c = (Connection) key.attachment();
+        int n = c.channel.read(c.in);
+        if (n < 0) {
+            drop(key);
+            return;
+        }
+        ByteBuffer in = c.in.flip();
+        int lineStart = 0, limit = in.limit();
+        for (int i = 0; i < limit; i++) {
+            if (in.get(i) != '\n') continue;
+            command(c, in, lineStart, i);
+            lineStart = i + 1;
+        }
+        in.position(lineStart);
+        in.compact();
+        if (!in.hasRemaining()) throw new IOException("Line longer than " + MAX_LINE + " bytes");
+    }
+
+    /** One line, between from and to, line break excluded. */
+    private void command(Connection c, ByteBuffer in, int from, int to) {
+        if (to > from && in.get(to - 1) == '\r') to--;
+        if (is(in, from, to, SUBSCRIBE)) {
+            subscribe(c);
+            return;
+        }
+        int comma = from;
+        while (comma < to && in.get(comma) != ',') comma++;
+        if (comma == to && textCommand(c, new String(bytes(in, from, to), StandardCharsets.UTF_8).trim())) return;
+        // An optional tag before the first '|', as long as no ',' comes first
+        int bar = from;
+        while (bar < to && in.get(bar) != '|' && in.get(bar) != ',') bar++;
+        boolean tagged = bar < to && in.get(bar) == '|';
+        sink.from = c;
+        sink.tag = tagged ? new String(bytes(in, from, bar), StandardCharsets.UTF_8) : "";
+        parser.parse(in.duplicate().limit(to).position(tagged ? bar + 1 : from), true, sink);
+    }
+
+    /** Applies each parsed result and tells the subscribers. */
+    private final class Sink implements MatchParser.MatchSink {
+        Connection from;
+        String tag;
+
+        @Override
+        public void match(String teamA, int goalsA, String teamB, int goalsB) {
+            if (log == null) {
+                table.recordMatch(teamA, goalsA, teamB, goalsB);
+            } else {
+                try {
+                    log.append(teamA, goalsA, teamB, goalsB);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // The log is the table; stop rather than diverge
+                }
+            }
+            seq++;
+            if (subscribers.isEmpty()) return;
+            line.setLength(0);
+            line.append("D|").append(seq).append('|').append(tag)
+                    .append('|').append(table.rankOf(teamA)).append('|').append(table.rankOf(teamB))
+                    .append('|').append(teamA).append(' ').append(goalsA)
+                    .append(", ").append(teamB).append(' ').append(goalsB).append('\n');
+            byte[] update = line.toString().getBytes(StandardCharsets.UTF_8);
+            for (Connection s : subscribers) send(s, update);
+        }
+
+        @Override
+        public void badLine(long lineNumber, String reason) {
+            send(from, ("ERR|" + tag + "|" + reason + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Sends the whole table, then makes the connection a subscriber. */
+    private void subscribe(Connection c) {
+        if (c.subscriber) return;
+        StringBuilder sb = new StringBuilder();
+        for (LeagueTable.Standing s : table.standings()) sb.append("S|").append(s.row()).append('\n');
+        sb.append("E|").append(seq).append('\n');
+        send(c, sb.toString().getBytes(StandardCharsets.UTF_8));
+        c.subscriber = true;
+        subscribers.add(c);
+    }
+
+    /**
+     * MATCHDAY, ASOF and ASOFDAY. Returns false for anything else, which is then parsed as a
+     * result and so reported as a bad line.
+     */
+    private boolean textCommand(Connection c, String command) {
+        String[] words = command.split("\\s+");
+        String name = words[0];
+        if (!name.equals("MATCHDAY") && !name.equals("ASOF") && !name.equals("ASOFDAY")) return false;
+        try {
+            if (words.length != (name.equals("MATCHDAY") ? 1 : 2)) {
+                throw new IllegalArgumentException("Usage: " + name + (name.equals("MATCHDAY") ? "" : name.equals("ASOF") ? " k" : " n"));
+            }
+            if (log == null) throw new IllegalArgumentException(name + " needs a server started with a match log");
+            if (name.equals("MATCHDAY")) {
+                int matchday = log.endMatchday();
+                byte[] note = ("M|" + matchday + "|" + seq + "\n").getBytes(StandardCharsets.UTF_8);
+                for (Connection s : subscribers) send(s, note);
+                return true;
+            }
+            long k = name.equals("ASOF") ? Long.parseLong(words[1]) : log.matchdayEnd(Integer.parseInt(words[1]));
+            StringBuilder sb = new StringBuilder();
+            for (LeagueTable.Standing s : log.tableAfter(k).standings()) sb.append("S|").append(s.row()).append('\n');
+            sb.append("E|").append(k).append('\n');
+            send(c, sb.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            send(c, ("ERR||" + e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /** Queues bytes for the connection; they go out in flush, after the whole select round. */
+    private void send(Connection c, byte[] bytes) {
+        if (!c.channel.isOpen()) return;
+        if (c.out.remaining() < bytes.length) {
+            int needed = c.out.position() + bytes.length;
+            if (needed > MAX_BACKLOG) {
+                drop(c.channel.keyFor(selector)); // Too slow to keep up
+                return;
+            }
+            c.out = ByteBuffer.allocate(Math.min(MAX_BACKLOG, Math.max(needed, 2 * c.out.capacity())))
+                    .put(c.out.flip());
+        }
+        c.out.put(bytes);
+        pending.add(c);
+    }
+
+    /** Writes what each connection has queued, waiting for OP_WRITE where the socket is full. */
+    private void flush() {
+        subscribers.removeIf(s -> !s.channel.isOpen());
+        for (Iterator<Connection> it = pending.iterator(); it.hasNext(); ) {
+            Connection c = it.next();
+            it.remove();
+            SelectionKey key = c.channel.keyFor(selector);
+            if (key == null || !key.isValid()) continue;
+            try {
+                c.out.flip();
+                c.channel.write(c.out);
+                boolean more = c.out.hasRemaining();
+                c.out.compact();
+                key.interestOps(more ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            } catch (IOException e) {
+                drop(key);
+            }
+        }
+    }
+
+    /** Closes the connection. Closed subscribers are taken off the list in flush. */
+    private void drop(SelectionKey key) {
+        if (key == null) return;
+        key.cancel();
+        closeQuietly(key.channel());
+    }
+
+    private static boolean is(ByteBuffer buf, int from, int to, byte[] word) {
+        if (to - from != word.length) return false;
+        for (int i = 0; i < word.length; i++) {
+            if (buf.get(from + i) != word[i]) return false;
+        }
+        return true;
+    }
+
+    private static byte[] bytes(ByteBuffer buf, int from, int to) {
+        byte[] b = new byte[to - from];
+        buf.get(from, b);
+        return b;
+    }
+
+    private static void closeQuietly(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /** Usage: java Soccer_App.LeagueFeedServer [port] [logDirectory] */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        MatchLog log = args.length > 1 ? new MatchLog(Path.of(args[1])) : null;
+        try {
+            LeagueFeedServer server = new LeagueFeedServer(port, log);
+            System.out.println("League feed listening on port " + server.getPort()
+                    + (log == null ? "" : ", " + log.size() + " result(s) in " + args[1]));
+            server.run();
+        } finally {
+            if (log != null) log.close();
+        }
+    }
+}
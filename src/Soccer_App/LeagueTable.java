@@ -0,0 +1,444 @@
+package Soccer_App;
+
+import java.util.*;
+
+/**
+ * League standings kept in ranked order as results arrive.
+ * Rules: win=3, draw=1, loss=0. Order: points desc, then goal difference desc, then goals
+ * scored desc, then name asc (case-insensitive).
+ *
+ * Each team's totals live in one Standing, found by name in a HashMap and also held in a
+ * treap sorted by the ranking order, with parent links and subtree sizes. A result updates
+ * the two teams and moves each one that now sorts past a neighbour, so recording a match is
+ * O(log n) expected and the table is always sorted: reading it is a walk, never a sort. Each
+ * Standing is its own tree node, so unlike a TreeSet, moving a team allocates nothing.
+ *
+ * Not thread-safe; LeagueEngine wraps it for use from more than one thread.
+ */
+public class LeagueTable {
+    /** Results kept for a team's form. */
+    public static final int FORM_LENGTH = 5;
+    private static final int WIN = 1, DRAW = 2, LOSS = 3; // Form codes, two bits each
+
+    /**
+     * One team's running totals, all plain ints. Read-only outside LeagueTable, which re-files
+     * it on every change.
+     */
+    public static final class Standing {
+        private final String name;
+        private int points;
+        private int played, won, drawn, lost;
+        private int goalsFor, goalsAgainst;
+        private int form;       // Last FORM_LENGTH results, two bits each, newest lowest
+        private int formLength;
+        private Standing left, right, parent; // Tree links, in ORDER
+        private int size;     // Standings in this subtree; 0 while out of the tree
+        private int priority; // Heap order of the tree; fixed when created
+
+        private Standing(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+        public int getPoints() { return points; }
+        public int getPlayed() { return played; }
+        public int getWon() { return won; }
+        public int getDrawn() { return drawn; }
+        public int getLost() { return lost; }
+        public int getGoalsFor() { return goalsFor; }
+        public int getGoalsAgainst() { return goalsAgainst; }
+        public int getGoalDifference() { return goalsFor - goalsAgainst; }
+
+        /** The last results, oldest first, as W, D and L: "WWDLW". */
+        public String getForm() {
+            char[] out = new char[formLength];
+            for (int i = 0; i < formLength; i++) {
+                int code = (form >>> (2 * (formLength - 1 - i))) & 3;
+                out[i] = code == WIN ? 'W' : code == DRAW ? 'D' : 'L';
+            }
+            return new String(out);
+        }
+
+        /** Adds one match. */
+        private void record(int scored, int conceded) {
+            int pts = pointsFor(scored, conceded);
+            points += pts;
+            played++;
+            if (pts == 3) won++;
+            else if (pts == 1) drawn++;
+            else lost++;
+            goalsFor += scored;
+            goalsAgainst += conceded;
+            addForm(pts == 3 ? WIN : pts == 1 ? DRAW : LOSS, 1);
+        }
+
+        /** Adds the totals of a later part of the season. Its form goes after this one's. */
+        private void add(Standing later) {
+            points += later.points;
+            played += later.played;
+            won += later.won;
+            drawn += later.drawn;
+            lost += later.lost;
+            goalsFor += later.goalsFor;
+            goalsAgainst += later.goalsAgainst;
+            addForm(later.form, later.formLength);
+        }
+
+        private void addForm(int results, int count) {
+            form = ((form << (2 * count)) | results) & ((1 << (2 * FORM_LENGTH)) - 1);
+            formLength = Math.min(FORM_LENGTH, formLength + count);
+        }
+
+        /** P W D L GF GA GD form, for the console. */
+        public String summary() {
+            return String.format("P%d W%d D%d L%d GF%d GA%d GD%+d %s",
+                    played, won, drawn, lost, goalsFor, goalsAgainst, getGoalDifference(), getForm());
+        }
+
+        /**
+         * The record as one line of text, read back by Partial.addRow: won|drawn|lost|gf|ga|form|name.
+         * Used by the feed snapshot and MatchLog's snapshot files.
+         */
+        String row() {
+            return won + "|" + drawn + "|" + lost + "|" + goalsFor + "|" + goalsAgainst + "|" + getForm() + "|" + name;
+        }
+
+        @Override public String toString() { return name + ", " + points + " pts"; }
+    }
+
+    /**
+     * Totals per team for part of a season, without any ordering. Cheap to fill, and owned by
+     * one thread, so parallel loaders each fill their own and merge them at the end.
+     */
+    public static class Partial implements MatchParser.MatchSink {
+        private final Map<String, Standing> totals = new HashMap<>();
+
+        @Override
+        public void match(String teamA, int goalsA, String teamB, int goalsB) {
+            totals.computeIfAbsent(teamA, Standing::new).record(goalsA, goalsB);
+            totals.computeIfAbsent(teamB, Standing::new).record(goalsB, goalsA);
+        }
+
+        /**
+         * Adds totals already worked out elsewhere, such as a server's snapshot. Points and
+         * played follow from the results; form is W, D and L, oldest first.
+         */
+        public void addTotals(String team, int won, int drawn, int lost, int goalsFor, int goalsAgainst, String form) {
+            Standing s = new Standing(team);
+            s.won = won;
+            s.drawn = drawn;
+            s.lost = lost;
+            s.played = won + drawn + lost;
+            s.points = 3 * won + drawn;
+            s.goalsFor = goalsFor;
+            s.goalsAgainst = goalsAgainst;
+            int start = Math.max(0, form.length() - FORM_LENGTH);
+            for (int i = start; i < form.length(); i++) {
+                char c = form.charAt(i);
+                s.addForm(c == 'W' ? WIN : c == 'D' ? DRAW : LOSS, 1);
+            }
+            Standing old = totals.put(team, s);
+            if (old != null) {
+                old.add(s);
+                totals.put(team, old);
+            }
+        }
+
+        /** Adds one line written by Standing.row. Throws IllegalArgumentException if it is not one. */
+        void addRow(String row) {
+            String[] f = row.split("\\|", 7);
+            if (f.length != 7) throw new IllegalArgumentException("Not a table row: " + row);
+            addTotals(f[6], Integer.parseInt(f[0]), Integer.parseInt(f[1]), Integer.parseInt(f[2]),
+                    Integer.parseInt(f[3]), Integer.parseInt(f[4]), f[5]);
+        }
+
+        public int size() { return totals.size(); }
+    }
+
+    /** Called once per team, in table order, with its shared rank. */
+    public interface RankedRow {
+        void accept(int rank, Standing team);
+    }
+
+    /** Everything that decides a rank: points, goal difference, goals scored, all desc. */
+    static final Comparator<Standing> BY_RESULTS = LeagueTable::compareResults;
+
+    /** Table order. Names break ties alphabetically; names differing only in case stay apart. */
+    static final Comparator<Standing> ORDER = LeagueTable::compareOrder;
+
+    // Plain int compares rather than a chain of key extractors: they run at every level of
+    // the tree, on every result.
+    private static int compareResults(Standing a, Standing b) {
+        if (a.points != b.points) return Integer.compare(b.points, a.points);
+        int gdA = a.getGoalDifference(), gdB = b.getGoalDifference();
+        if (gdA != gdB) return Integer.compare(gdB, gdA);
+        return Integer.compare(b.goalsFor, a.goalsFor);
+    }
+
+    private static int compareOrder(Standing a, Standing b) {
+        int c = compareResults(a, b);
+        if (c != 0) return c;
+        c = String.CASE_INSENSITIVE_ORDER.compare(a.name, b.name);
+        return c != 0 ? c : a.name.compareTo(b.name);
+    }
+
+    private final Map<String, Standing> teams = new HashMap<>();
+    // Treap over the standings in ORDER: each Standing is its own node, so re-filing a team
+    // moves the same object and nothing is allocated.
+    private Standing root;
+    private Standing splitBefore, splitAfter; // Results of the last split
+    private long nodes; // Standings ever created, for their priorities
+    private final List<Standing> rankedView = new AbstractList<Standing>() {
+        @Override public Standing get(int i) { return at(Objects.checkIndex(i, teams.size())); }
+        @Override public int size() { return teams.size(); }
+        @Override public Iterator<Standing> iterator() { return inOrder(); }
+    };
+
+    /** Applies one result to both teams. O(log n); no allocation once both teams exist. */
+    public void recordMatch(String teamA, int goalsA, String teamB, int goalsB) {
+        Standing a = standing(teamA);
+        a.record(goalsA, goalsB);
+        file(a);
+        Standing b = standing(teamB);
+        b.record(goalsB, goalsA);
+        file(b);
+    }
+
+    /** Win=3, draw=1, loss=0. */
+    static int pointsFor(int goalsFor, int goalsAgainst) {
+        return goalsFor > goalsAgainst ? 3 : goalsFor == goalsAgainst ? 1 : 0;
+    }
+
+    /** The team's standing, created on its first match; file puts a new one in the tree. */
+    private Standing standing(String team) {
+        Standing s = teams.get(team);
+        if (s == null) {
+            s = new Standing(team);
+            // Spread a counter over the int range: priorities only need to look random
+            long h = ++nodes * 0x9E3779B97F4A7C15L;
+            s.priority = (int) (h ^ h >>> 32);
+            teams.put(team, s);
+        }
+        return s;
+    }
+
+    /**
+     * Moves a standing whose totals just changed to its new place. Most results leave a team
+     * between the same two neighbours, and then nothing moves; otherwise it is unlinked
+     * through its parent and inserted again from the top. O(log n) expected.
+     */
+    private void file(Standing s) {
+        if (s.size != 0) {
+            Standing before = previous(s), after = next(s);
+            if ((before == null || compareOrder(before, s) < 0) && (after == null || compareOrder(s, after) < 0)) return;
+            unlink(s);
+        }
+        insert(s);
+    }
+
+    private static int size(Standing t) {
+        return t == null ? 0 : t.size;
+    }
+
+    private static Standing fix(Standing t) {
+        t.size = 1 + size(t.left) + size(t.right);
+        if (t.left != null) t.left.parent = t;
+        if (t.right != null) t.right.parent = t;
+        return t;
+    }
+
+    private static Standing previous(Standing s) {
+        if (s.left != null) {
+            Standing t = s.left;
+            while (t.right != null) t = t.right;
+            return t;
+        }
+        while (s.parent != null && s.parent.left == s) s = s.parent;
+        return s.parent;
+    }
+
+    private static Standing next(Standing s) {
+        if (s.right != null) {
+            Standing t = s.right;
+            while (t.left != null) t = t.left;
+            return t;
+        }
+        while (s.parent != null && s.parent.right == s) s = s.parent;
+        return s.parent;
+    }
+
+    /** Puts s, which is in no tree, in its place: down to the first node it outranks, then split. */
+    private void insert(Standing s) {
+        Standing parent = null, t = root;
+        boolean leftOfParent = false;
+        while (t != null && t.priority >= s.priority) {
+            t.size++;
+            parent = t;
+            leftOfParent = compareOrder(s, t) < 0;
+            t = leftOfParent ? t.left : t.right;
+        }
+        split(t, s);
+        s.left = splitBefore;
+        s.right = splitAfter;
+        fix(s);
+        replace(parent, leftOfParent, s);
+    }
+
+    /** Splits t into the nodes before s and those after it, left in splitBefore and splitAfter. */
+    private void split(Standing t, Standing s) {
+        if (t == null) {
+            splitBefore = splitAfter = null;
+        } else if (compareOrder(t, s) < 0) {
+            split(t.right, s);
+            t.right = splitBefore;
+            splitBefore = fix(t);
+        } else {
+            split(t.left, s);
+            t.left = splitAfter;
+            splitAfter = fix(t);
+        }
+    }
+
+    /** Takes s out of the tree without comparing anything, so its totals may already have changed. */
+    private void unlink(Standing s) {
+        Standing parent = s.parent;
+        replace(parent, parent != null && parent.left == s, join(s.left, s.right));
+        for (Standing t = parent; t != null; t = t.parent) t.size--;
+        s.left = s.right = s.parent = null;
+        s.size = 0;
+    }
+
+    /** Hangs t where a child of parent was, or makes it the root. */
+    private void replace(Standing parent, boolean left, Standing t) {
+        if (t != null) t.parent = parent;
+        if (parent == null) root = t;
+        else if (left) parent.left = t;
+        else parent.right = t;
+    }
+
+    /** Joins two trees, every node of a before every node of b. */
+    private static Standing join(Standing a, Standing b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = join(a.right, b);
+            return fix(a);
+        }
+        b.left = join(a, b.left);
+        return fix(b);
+    }
+
+    /** The standing at the 0-based position. O(log n) expected. */
+    private Standing at(int i) {
+        Standing t = root;
+        while (true) {
+            int before = size(t.left);
+            if (i < before) {
+                t = t.left;
+            } else if (i == before) {
+                return t;
+            } else {
+                i -= before + 1;
+                t = t.right;
+            }
+        }
+    }
+
+    /** Walks the tree in order, keeping the path down in a stack. */
+    private Iterator<Standing> inOrder() {
+        return new Iterator<Standing>() {
+            private final ArrayDeque<Standing> path = new ArrayDeque<>();
+
+            { descend(root); }
+
+            private void descend(Standing t) {
+                for (; t != null; t = t.left) path.push(t);
+            }
+
+            @Override public boolean hasNext() { return !path.isEmpty(); }
+
+            @Override
+            public Standing next() {
+                if (path.isEmpty()) throw new NoSuchElementException();
+                Standing t = path.pop();
+                descend(t.right);
+                return t;
+            }
+        };
+    }
+
+    /**
+     * Adds a partial table's totals. Counts simply add up, so the table matches recording the
+     * matches one by one; form is the exception, so merge partials in the order they cover.
+     * O(t log n) for t teams in the partial.
+     */
+    public void merge(Partial partial) {
+        for (Map.Entry<String, Standing> e : partial.totals.entrySet()) {
+            Standing s = standing(e.getKey());
+            s.add(e.getValue());
+            file(s);
+        }
+    }
+
+    /** A separate table with the same teams, totals and form. */
+    public LeagueTable copy() {
+        LeagueTable out = new LeagueTable();
+        for (Standing s : rankedView) {
+            Standing c = out.standing(s.name);
+            c.add(s);
+            out.file(c);
+        }
+        return out;
+    }
+
+    /** Number of teams with at least one match. */
+    public int size() { return teams.size(); }
+
+    /** The team's standing, or null if it has not played. */
+    public Standing get(String team) { return teams.get(team); }
+
+    /**
+     * The team's shared rank, as forEachRanked would give it, or 0 if it has not played.
+     * The teams with better results come first in the tree, so one walk down counts them:
+     * O(log n) expected, however many teams are level.
+     */
+    public int rankOf(String team) {
+        Standing s = teams.get(team);
+        if (s == null) return 0;
+        int better = 0;
+        for (Standing t = root; t != null; ) {
+            if (compareResults(t, s) < 0) {
+                better += size(t.left) + 1;
+                t = t.right;
+            } else {
+                t = t.left;
+            }
+        }
+        return better + 1;
+    }
+
+    /** Every team in table order. Read-only and live, so do not change the table while iterating. */
+    public List<Standing> standings() { return rankedView; }
+
+    /**
+     * Walks the table with shared ranks: 1,2,3,3,3,6. Teams share a rank only when points,
+     * goal difference and goals scored all tie. O(n), no sorting.
+     */
+    public void forEachRanked(RankedRow row) {
+        Standing previous = null;
+        int lastRank = 0;           // the rank number we print
+        int position = 0;           // 1-based position in the sorted list
+        for (Iterator<Standing> it = inOrder(); it.hasNext(); ) {
+            Standing s = it.next();
+            position++;
+            if (previous == null || compareResults(previous, s) != 0) lastRank = position;
+            previous = s;
+            row.accept(lastRank, s);
+        }
+    }
+
+    public void clear() {
+        teams.clear();
+        root = null;
+    }
+}
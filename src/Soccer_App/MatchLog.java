@@ -0,0 +1,297 @@
+package Soccer_App;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * League standings that persist: every applied match is appended to a log, and every
+ * snapshotEvery matches the whole table is written out beside it. The table after any earlier
+ * match, or at the end of any matchday, is then the nearest snapshot at or before it plus a
+ * replay of at most snapshotEvery - 1 log lines, rather than the whole season again.
+ *
+ * Files in the directory:
+ * <pre>
+ * matches.log          one match per line, "Team A 2, Team B 1", in the order applied
+ * matchdays.txt        matches played by the end of each matchday, one number per line
+ * snapshot-K.txt       "K offset teams" (matches covered, log bytes they take, rows that
+ *                      follow), then one Standing.row() per team in table order
+ * </pre>
+ * Appends are buffered: flush hands them to the OS, and a snapshot forces the log to disk
+ * before it is written, so a snapshot never covers matches the log could lose. The snapshot
+ * is forced too before it is renamed into place. On open, a torn last line is cut off and the
+ * current table is rebuilt from the newest snapshot; one with fewer rows than its header
+ * says, or that cannot be read, is skipped for the one before it.
+ *
+ * Not thread-safe: one thread applies matches and asks the questions, like LeagueTable.
+ */
+public class MatchLog implements Closeable {
+    public static final int DEFAULT_SNAPSHOT_EVERY = 1000;
+    private static final String LOG = "matches.log", MATCHDAYS = "matchdays.txt";
+    private static final String SNAPSHOT_PREFIX = "snapshot-", SNAPSHOT_SUFFIX = ".txt";
+
+    private final Path dir;
+    private final int snapshotEvery;
+    private final FileChannel log;
+    private final ByteBuffer pending = ByteBuffer.allocate(64 * 1024); // Appended, not yet written
+    private final StringBuilder line = new StringBuilder();
+    private long logBytes;      // Log size, pending bytes included
+    private long matches;
+    private final TreeMap<Long, Long> snapshots = new TreeMap<>(); // Matches covered -> log offset after them
+    private final List<Long> matchdayEnds = new ArrayList<>();
+    private final LeagueTable table = new LeagueTable();
+
+    /** Opens or creates the log in the directory and rebuilds the current table from it. */
+    public MatchLog(Path dir, int snapshotEvery) throws IOException {
+        if (snapshotEvery < 1) throw new IllegalArgumentException("snapshotEvery must be at least 1");
+        this.dir = dir;
+        this.snapshotEvery = snapshotEvery;
+        Files.createDirectories(dir);
+        log = FileChannel.open(dir.resolve(LOG), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    public MatchLog(Path dir) throws IOException {
+        this(dir, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    private void recover() throws IOException {
+        // Cut a last line the previous run did not finish writing
+        long size = log.size();
+        ByteBuffer one = ByteBuffer.allocate(1);
+        while (size > 0) {
+            one.clear();
+            log.read(one, size - 1);
+            if (one.get(0) == '\n') break;
+            size--;
+        }
+        log.truncate(size);
+        logBytes = size;
+        log.position(size);
+
+        snapshots.put(0L, 0L);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : files) {
+                long[] header = readHeader(file);
+                if (header != null && header[1] <= size) snapshots.put(header[0], header[1]);
+            }
+        }
+
+        Map.Entry<Long, Long> newest = mergeSnapshot(Long.MAX_VALUE, table);
+        matches = newest.getKey() + replay(newest.getValue(), size, Long.MAX_VALUE, table);
+
+        Path days = dir.resolve(MATCHDAYS);
+        if (Files.exists(days)) {
+            List<String> lines = Files.readAllLines(days, StandardCharsets.UTF_8);
+            for (String s : lines) {
+                if (s.isBlank()) continue;
+                long end = Long.parseLong(s.trim());
+                if (end > matches) break; // Ends after what survived in the log
+                matchdayEnds.add(end);
+            }
+            if (matchdayEnds.size() < lines.size()) {
+                StringBuilder kept = new StringBuilder();
+                for (long end : matchdayEnds) kept.append(end).append('\n');
+                Files.writeString(days, kept, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    /** Matches in the log. */
+    public long size() { return matches; }
+
+    /** Matchdays ended so far. */
+    public int matchdays() { return matchdayEnds.size(); }
+
+    /** The live table after every match in the log. Change it only through append. */
+    public LeagueTable table() { return table; }
+
+    /** Applies a match to the table and appends it to the log, then snapshots if one is due. */
+    public void append(String teamA, int goalsA, String teamB, int goalsB) throws IOException {
+        line.setLength(0);
+        line.append(teamA).append(' ').append(goalsA).append(", ").append(teamB).append(' ').append(goalsB).append('\n');
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        if (pending.remaining() < bytes.length) writePending();
+        if (pending.remaining() < bytes.length) {
+            write(ByteBuffer.wrap(bytes)); // Longer than the buffer
+        } else {
+            pending.put(bytes);
+        }
+        logBytes += bytes.length;
+        table.recordMatch(teamA, goalsA, teamB, goalsB);
+        if (++matches % snapshotEvery == 0) snapshot();
+    }
+
+    /** Ends the current matchday and returns its number, from 1. Empty matchdays are allowed. */
+    public int endMatchday() throws IOException {
+        Files.writeString(dir.resolve(MATCHDAYS), matches + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        matchdayEnds.add(matches);
+        return matchdayEnds.size();
+    }
+
+    /** Matches played by the end of the matchday, numbered from 1. */
+    public long matchdayEnd(int matchday) {
+        if (matchday < 1 || matchday > matchdayEnds.size()) {
+            throw new IllegalArgumentException("No matchday " + matchday + "; " + matchdayEnds.size() + " so far");
+        }
+        return matchdayEnds.get(matchday - 1);
+    }
+
+    /**
+     * A new table as it stood after the first k matches, 0 for an empty one: the nearest
+     * snapshot at or before k, plus the log lines after it. O(teams + snapshotEvery).
+     */
+    public LeagueTable tableAfter(long k) throws IOException {
+        if (k < 0 || k > matches) throw new IllegalArgumentException("No match " + k + "; " + matches + " so far");
+        writePending();
+        LeagueTable out = new LeagueTable();
+        Map.Entry<Long, Long> nearest = mergeSnapshot(k, out);
+        replay(nearest.getValue(), logBytes, k - nearest.getKey(), out);
+        return out;
+    }
+
+    /** A new table as it stood at the end of the matchday, numbered from 1. */
+    public LeagueTable tableAtMatchday(int matchday) throws IOException {
+        return tableAfter(matchdayEnd(matchday));
+    }
+
+    /**
+     * Applies up to count log lines, starting at the byte offset, to the table, and returns how
+     * many there were. Log lines are one match each, so counting line breaks finds the end.
+     */
+    private long replay(long from, long to, long count, LeagueTable into) throws IOException {
+        long replayed = 0;
+        MatchParser parser = new MatchParser();
+        MatchParser.MatchSink sink = into::recordMatch;
+        while (from < to && replayed < count) {
+            long length = Math.min(to - from, Integer.MAX_VALUE);
+            MappedByteBuffer window = log.map(FileChannel.MapMode.READ_ONLY, from, length);
+            int end = 0, lastBreak = -1;
+            while (end < window.limit() && replayed < count) {
+                if (window.get(end++) == '\n') {
+                    replayed++;
+                    lastBreak = end;
+                }
+            }
+            if (lastBreak < 0) throw new IOException("Match log line longer than " + length + " bytes");
+            try {
+                parser.parse(window.limit(lastBreak), true, sink);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Match log is corrupt: " + e.getMessage(), e);
+            }
+            from += lastBreak;
+        }
+        return replayed;
+    }
+
+    /** Hands buffered appends to the OS. They survive the process, not a power cut. */
+    public void flush() throws IOException {
+        writePending();
+    }
+
+    private void writePending() throws IOException {
+        write(pending.flip());
+        pending.clear();
+    }
+
+    private void write(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) log.write(buf);
+    }
+
+    /**
+     * Forces the log to disk, then writes the table as the snapshot for the current match
+     * count, forces that, and renames it into place.
+     */
+    private void snapshot() throws IOException {
+        writePending();
+        log.force(false);
+        Path file = dir.resolve(SNAPSHOT_PREFIX + matches + SNAPSHOT_SUFFIX);
+        Path tmp = dir.resolve(file.getFileName() + ".tmp");
+        StringBuilder sb = new StringBuilder();
+        sb.append(matches).append(' ').append(logBytes).append(' ').append(table.size()).append('\n');
+        for (LeagueTable.Standing s : table.standings()) sb.append(s.row()).append('\n');
+        ByteBuffer bytes = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining()) ch.write(bytes);
+            ch.force(false); // Else a power cut could leave the renamed snapshot short
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshots.put(matches, logBytes);
+    }
+
+    /**
+     * Merges the newest usable snapshot at or before k into the table and returns its entry.
+     * A snapshot that fails to read is dropped, and the one before it tried; k = 0 always works.
+     */
+    private Map.Entry<Long, Long> mergeSnapshot(long k, LeagueTable into) throws IOException {
+        while (true) {
+            Map.Entry<Long, Long> nearest = snapshots.floorEntry(k);
+            try {
+                into.merge(readSnapshot(nearest.getKey()));
+                return nearest;
+            } catch (IOException e) {
+                if (nearest.getKey() == 0) throw e;
+                snapshots.remove(nearest.getKey());
+            }
+        }
+    }
+
+    /** The totals in the snapshot after k matches; none for k = 0. */
+    private LeagueTable.Partial readSnapshot(long k) throws IOException {
+        LeagueTable.Partial totals = new LeagueTable.Partial();
+        if (k == 0) return totals;
+        List<String> lines = Files.readAllLines(dir.resolve(SNAPSHOT_PREFIX + k + SNAPSHOT_SUFFIX), StandardCharsets.UTF_8);
+        long[] header = lines.isEmpty() ? null : readHeader(lines.get(0));
+        if (header == null || header[2] != lines.size() - 1) throw new IOException("Snapshot " + k + " is short");
+        try {
+            for (String s : lines.subList(1, lines.size())) totals.addRow(s);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Snapshot " + k + " is corrupt: " + e.getMessage(), e);
+        }
+        return totals;
+    }
+
+    /** The snapshot's matches, log offset and rows, or null if the header cannot be read. */
+    private static long[] readHeader(Path file) throws IOException {
+        try (var r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return readHeader(String.valueOf(r.readLine()));
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+
+    private static long[] readHeader(String line) {
+        String[] f = line.trim().split(" ");
+        if (f.length != 3) return null;
+        try {
+            return new long[]{Long.parseLong(f[0]), Long.parseLong(f[1]), Long.parseLong(f[2])};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Writes what is buffered, forces it to disk, and closes the log. */
+    @Override
+    public void close() throws IOException {
+        try {
+            writePending();
+            log.force(false);
+        } finally {
+            log.close();
+        }
+    }
+}
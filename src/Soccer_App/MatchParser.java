@@ -0,0 +1,261 @@
+package Soccer_App;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming parser for match results, for archives far larger than memory and for single
+ * lines typed or pasted in. One match per line; blank lines are skipped:
+ *
+ *   TeamA <score>, TeamB <score>
+ *
+ * The file is memory-mapped a window at a time and scanned as bytes: no line Strings, no
+ * split, no substring. A team name becomes a String once, the first time it is seen; after
+ * that it is looked up by its bytes in a small hash table, so a season of millions of matches
+ * between a few dozen teams allocates almost nothing per line.
+ *
+ * Files are read as UTF-8. Scores must be ASCII digits. Text given as chars is encoded into
+ * a buffer the parser keeps, then parsed the same way, so both paths share one set of rules.
+ */
+public class MatchParser {
+
+    /** Receives each parsed match, in file order. */
+    public interface MatchSink {
+        void match(String teamA, int goalsA, String teamB, int goalsB);
+
+        /**
+         * A line that is not a match. The reason ends with the text at fault. By default the
+         * whole parse stops, like processMatch.
+         */
+        default void badLine(long lineNumber, String reason) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": " + reason);
+        }
+    }
+
+    // Bytes mapped at a time. A window ends at a line break, so lines never span two.
+    private static final int WINDOW = 64 * 1024 * 1024;
+
+    private long lines;      // Lines seen so far, blank ones included
+    private long matches;
+    private long badLines;
+
+    // Team names by their UTF-8 bytes: open addressing, at most half full
+    private byte[][] keys = new byte[64][];
+    private String[] names = new String[64];
+    private int[] hashes = new int[64];
+    private int teams;
+
+    private String sideTeam; // Team name found by the last call to side()
+
+    // Chars given to parse(CharSequence), as UTF-8; grows to the longest text seen
+    private byte[] text = new byte[256];
+    private ByteBuffer textBuf = ByteBuffer.wrap(text);
+
+    public long getLines() { return lines; }
+    public long getMatches() { return matches; }
+    public long getBadLines() { return badLines; }
+
+    /** Parses a whole file, mapping it a window at a time. */
+    public void parseFile(Path file, MatchSink sink) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long pos = 0, size = ch.size();
+            while (pos < size) {
+                long length = Math.min(WINDOW, size - pos);
+                MappedByteBuffer window = ch.map(FileChannel.MapMode.READ_ONLY, pos, length);
+                boolean last = pos + length == size;
+                int used = parse(window, last, sink);
+                if (used == 0) throw new IOException("Line " + (lines + 1) + " is longer than " + WINDOW + " bytes");
+                pos += used;
+            }
+        }
+    }
+
+    /**
+     * Parses every complete line in the buffer, from its position to its limit, and returns
+     * how many bytes that was. Unless endOfInput, a last line with no line break is left for
+     * the next call, which should start with it.
+     */
+    public int parse(ByteBuffer buf, boolean endOfInput, MatchSink sink) {
+        int start = buf.position(), limit = buf.limit();
+        int lineStart = start;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buf.get(lineEnd) != '\n') lineEnd++;
+            if (lineEnd == limit && !endOfInput) break;
+            lines++;
+            line(buf, lineStart, lineEnd, sink);
+            lineStart = lineEnd + 1;
+        }
+        int used = Math.min(lineStart, limit) - start;
+        buf.position(start + used);
+        return used;
+    }
+
+    /**
+     * Parses every line in the text, the last one with or without a line break. Allocates
+     * nothing once the text fits the parser's buffer and its team names have been seen.
+     */
+    public void parse(CharSequence chars, MatchSink sink) {
+        int n = chars.length();
+        if (text.length < 3 * n) { // A char never takes more than 3 bytes; a pair takes 4
+            text = new byte[Math.max(3 * n, 2 * text.length)];
+            textBuf = ByteBuffer.wrap(text);
+        }
+        int len = 0;
+        for (int i = 0; i < n; i++) {
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                text[len++] = (byte) c;
+            } else if (c < 0x800) {
+                text[len++] = (byte) (0xC0 | c >> 6);
+                text[len++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                char low = i + 1 < n ? chars.charAt(i + 1) : 0;
+                if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low)) {
+                    int cp = Character.toCodePoint(c, low);
+                    i++;
+                    text[len++] = (byte) (0xF0 | cp >> 18);
+                    text[len++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                    text[len++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                    text[len++] = (byte) (0x80 | cp & 0x3F);
+                } else {
+                    text[len++] = '?'; // Unpaired, as String.getBytes does
+                }
+            } else {
+                text[len++] = (byte) (0xE0 | c >> 12);
+                text[len++] = (byte) (0x80 | c >> 6 & 0x3F);
+                text[len++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        textBuf.limit(len).position(0);
+        parse(textBuf, true, sink);
+    }
+
+    /** One line, between from and to, line break excluded. */
+    private void line(ByteBuffer buf, int from, int to, MatchSink sink) {
+        from = skipBlanks(buf, from, to);
+        to = trimEnd(buf, from, to);
+        if (from == to) return; // Blank line
+
+        int comma = from;
+        while (comma < to && buf.get(comma) != ',') comma++;
+        if (comma == to) {
+            bad(sink, "Invalid match, expected Team1 Score, Team2 Score", buf, from, to);
+            return;
+        }
+
+        int goalsA = side(buf, from, comma);
+        if (goalsA < 0) {
+            bad(sink, "Invalid team+score before the comma", buf, from, comma);
+            return;
+        }
+        String a = sideTeam;
+        int goalsB = side(buf, comma + 1, to);
+        if (goalsB < 0) {
+            bad(sink, "Invalid team+score after the comma", buf, comma + 1, to);
+            return;
+        }
+        matches++;
+        sink.match(a, goalsA, sideTeam, goalsB);
+    }
+
+    /** Reports the line with the offending text, trimmed; only a bad line pays for decoding it. */
+    private void bad(MatchSink sink, String reason, ByteBuffer buf, int from, int to) {
+        badLines++;
+        from = skipBlanks(buf, from, to);
+        byte[] bytes = new byte[trimEnd(buf, from, to) - from];
+        buf.get(from, bytes);
+        sink.badLine(lines, reason + ": " + new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses "Team Name 4": the name is everything before the last space, the score what is
+     * after it. Leaves the name in sideTeam and returns the score, or -1 if the text is not valid.
+     */
+    private int side(ByteBuffer buf, int from, int to) {
+        from = skipBlanks(buf, from, to);
+        to = trimEnd(buf, from, to);
+        int space = to - 1;
+        while (space >= from && buf.get(space) != ' ') space--;
+        if (space <= from || space == to - 1) return -1;
+
+        long score = 0;
+        for (int i = space + 1; i < to; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) return -1;
+            score = score * 10 + d;
+            if (score > Integer.MAX_VALUE) return -1;
+        }
+        sideTeam = team(buf, from, trimEnd(buf, from, space));
+        return (int) score;
+    }
+
+    private static int skipBlanks(ByteBuffer buf, int from, int to) {
+        while (from < to && (buf.get(from) & 0xFF) <= ' ') from++;
+        return from;
+    }
+
+    private static int trimEnd(ByteBuffer buf, int from, int to) {
+        while (to > from && (buf.get(to - 1) & 0xFF) <= ' ') to--;
+        return to;
+    }
+
+    /** The shared String for the name in these bytes. Allocates only for a name not seen before. */
+    private String team(ByteBuffer buf, int from, int to) {
+        int h = 1;
+        for (int i = from; i < to; i++) h = 31 * h + buf.get(i);
+        h ^= h >>> 16;
+
+        int mask = keys.length - 1;
+        for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+            byte[] key = keys[slot];
+            if (key == null) {
+                byte[] bytes = new byte[to - from];
+                buf.get(from, bytes);
+                String name = new String(bytes, StandardCharsets.UTF_8);
+                keys[slot] = bytes;
+                names[slot] = name;
+                hashes[slot] = h;
+                if (++teams * 2 > keys.length) grow();
+                return name;
+            }
+            if (hashes[slot] == h && sameBytes(key, buf, from, to)) return names[slot];
+        }
+    }
+
+    private static boolean sameBytes(byte[] key, ByteBuffer buf, int from, int to) {
+        if (key.length != to - from) return false;
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buf.get(from + i)) return false;
+        }
+        return true;
+    }
+
+    private void grow() {
+        byte[][] oldKeys = keys;
+        String[] oldNames = names;
+        int[] oldHashes = hashes;
+        int capacity = oldKeys.length * 2, mask = capacity - 1;
+        keys = new byte[capacity][];
+        names = new String[capacity];
+        hashes = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) continue;
+            int slot = oldHashes[i] & mask;
+            while (keys[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            names[slot] = oldNames[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return lines + " lines, " + matches + " matches, " + badLines + " bad, " + teams + " teams";
+    }
+}
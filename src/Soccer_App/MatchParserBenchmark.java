@@ -0,0 +1,101 @@
+package Soccer_App;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Lines per second for line-by-line reading (FileReader + processMatch, which goes through
+ * LeagueEngine) against MatchParser on the whole file, on the same generated season file. Both feed a LeagueTable, so the numbers
+ * include recording the matches; a further run parses without recording anything. Then
+ * ParallelMatchProcessor runs on 1, 2, 4... threads, up to the number of cores.
+ * Run with: java Soccer_App.MatchParserBenchmark [lines] [rounds]
+ */
+public class MatchParserBenchmark {
+    public static void main(String[] args) throws IOException {
+        int lines = args.length >= 1 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rounds = args.length >= 2 ? Integer.parseInt(args[1]) : 3;
+
+        Path file = Files.createTempFile("season", ".txt");
+        try {
+            writeSeason(file, lines);
+            System.out.printf("%d lines, %.1f MB%n", lines, Files.size(file) / 1e6);
+            for (int r = 1; r <= rounds; r++) {
+                long t0 = System.nanoTime();
+                SoccerLeagueRanking old = new SoccerLeagueRanking();
+                try (BufferedReader br = new BufferedReader(new FileReader(file.toFile()))) {
+                    for (String line; (line = br.readLine()) != null; ) {
+                        line = line.trim();
+                        if (!line.isEmpty()) old.processMatch(line);
+                    }
+                }
+                report(r, "readLine + processMatch", lines, System.nanoTime() - t0);
+
+                t0 = System.nanoTime();
+                LeagueTable table = new LeagueTable();
+                new MatchParser().parseFile(file, table::recordMatch);
+                report(r, "MatchParser", lines, System.nanoTime() - t0);
+                if (!same(old.getLeague().snapshot(), table)) throw new IllegalStateException("Parsers disagree");
+
+                // Parsing alone, to show what recording costs
+                long[] goals = new long[1];
+                t0 = System.nanoTime();
+                new MatchParser().parseFile(file, (a, ga, b, gb) -> goals[0] += ga);
+                report(r, "MatchParser, parse only", lines, System.nanoTime() - t0);
+
+                // Parallel ingestion from 1 thread up to every core, checked against the sequential table
+                for (int threads = 1; threads <= Math.max(4, Runtime.getRuntime().availableProcessors()); threads *= 2) {
+                    ForkJoinPool pool = new ForkJoinPool(threads);
+                    try {
+                        t0 = System.nanoTime();
+                        LeagueTable parallel = new LeagueTable();
+                        new ParallelMatchProcessor(pool).processFile(file, parallel);
+                        report(r, "parallel, " + threads + " thread(s)", lines, System.nanoTime() - t0);
+                        if (!same(parallel, table)) throw new IllegalStateException("Parallel table differs");
+                    } finally {
+                        pool.shutdown();
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Same teams in the same order, with the same record and form. */
+    private static boolean same(LeagueTable a, LeagueTable b) {
+        if (a.size() != b.size()) return false;
+        Iterator<LeagueTable.Standing> other = b.standings().iterator();
+        for (LeagueTable.Standing s : a.standings()) {
+            LeagueTable.Standing t = other.next();
+            if (!s.getName().equals(t.getName()) || !s.summary().equals(t.summary())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void report(int round, String parser, int lines, long nanos) {
+        System.out.printf("round %d  %-24s %12.0f lines/s%n", round, parser, lines / (nanos / 1e9));
+    }
+
+    /** A season between a few dozen clubs, some with spaces in their names. */
+    static void writeSeason(Path file, int lines) throws IOException {
+        String[] clubs = new String[40];
+        for (int i = 0; i < clubs.length; i++) clubs[i] = (i % 3 == 0 ? "FC Club " : "Club") + i;
+        Random rnd = new Random(42);
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < lines; i++) {
+                w.write(clubs[rnd.nextInt(clubs.length)] + " " + rnd.nextInt(6) + ", "
+                        + clubs[rnd.nextInt(clubs.length)] + " " + rnd.nextInt(6));
+                w.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package Soccer_App;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parallel version of SoccerLeagueRanking.processFile for large season archives.
+ *
+ * The file is cut into chunks at line breaks. Each chunk is mapped and parsed on a fork-join
+ * pool by its own MatchParser into its own LeagueTable.Partial, so the workers share nothing.
+ * The partials are then merged into the league table on the calling thread. Points and games
+ * only ever add up, so the table is identical to the sequential one.
+ *
+ * A bad line fails the whole file with the same message the sequential path gives, naming the
+ * first bad line in the file, and nothing is merged.
+ */
+public class ParallelMatchProcessor {
+    private static final int CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private final ForkJoinPool pool;
+
+    public ParallelMatchProcessor() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelMatchProcessor(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /** One parsed chunk: its totals, its line count, and its first bad line if any. */
+    private static final class Chunk {
+        final LeagueTable.Partial totals = new LeagueTable.Partial() {
+            @Override
+            public void badLine(long lineNumber, String reason) {
+                if (badLine == 0) {
+                    badLine = lineNumber;
+                    badReason = reason;
+                }
+            }
+        };
+        long lines;
+        long badLine; // Relative to the chunk, 0 if none
+        String badReason;
+    }
+
+    /** Parses the file in parallel and merges every match into the table. */
+    public void processFile(Path file, LeagueTable into) throws IOException {
+        for (LeagueTable.Partial totals : parseFile(file)) into.merge(totals);
+    }
+
+    /**
+     * Parses the file in parallel without touching any table: one partial per chunk, in file
+     * order, to be merged in that order. Lets a caller parse outside its lock.
+     */
+    public List<LeagueTable.Partial> parseFile(Path file) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+            long start = 0, size = ch.size();
+            while (start < size) {
+                long end = lineBoundary(ch, Math.min(start + CHUNK_SIZE, size), size);
+                long from = start;
+                tasks.add(pool.submit(() -> parse(ch, from, end)));
+                start = end;
+            }
+            for (ForkJoinTask<Chunk> task : tasks) chunks.add(task.join());
+        } catch (RuntimeException e) {
+            // join rethrows a chunk's IOException wrapped in a RuntimeException
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+
+        long lineBase = 0;
+        for (Chunk c : chunks) {
+            if (c.badLine != 0) {
+                throw new IllegalArgumentException("Line " + (lineBase + c.badLine) + ": " + c.badReason);
+            }
+            lineBase += c.lines;
+        }
+        List<LeagueTable.Partial> partials = new ArrayList<>(chunks.size());
+        for (Chunk c : chunks) partials.add(c.totals);
+        return partials;
+    }
+
+    private static Chunk parse(FileChannel ch, long from, long to) throws IOException {
+        Chunk c = new Chunk();
+        MatchParser parser = new MatchParser();
+        parser.parse(ch.map(FileChannel.MapMode.READ_ONLY, from, to - from), true, c.totals);
+        c.lines = parser.getLines();
+        return c;
+    }
+
+    /** First offset at or after pos that starts a line, or size. */
+    private static long lineBoundary(FileChannel ch, long pos, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        while (pos < size) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+}
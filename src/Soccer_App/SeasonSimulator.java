@@ -0,0 +1,340 @@
+package Soccer_App;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Monte Carlo odds for how a season ends: plays the remaining fixtures at random many times
+ * on top of the current table and counts where each team finishes.
+ *
+ * Each side's goals are Poisson, with a rate from the two teams' scoring and conceding so far
+ * against the league average (shrunk toward average for teams with few games). Points come
+ * from LeagueTable.pointsFor and positions follow LeagueTable's order: points, goal
+ * difference, goals scored, then name.
+ *
+ * Simulations run on a fork-join pool. Every leaf task has its own SplittableRandom, split
+ * from the one before it, so a seed gives the same odds on any number of threads. A leaf
+ * allocates its arrays once and then runs on primitives only: one random long draws both
+ * scores, each through a 256-entry lookup table with an exact correction for the few draws
+ * near a threshold, and the finishing order is one sort of a long per team that packs
+ * points, goal difference, goals and name together. Both lookups avoid the unpredictable
+ * branches of scanning a cumulative table or comparing scores, which dominated the time.
+ */
+public class SeasonSimulator {
+    static final int MAX_GOALS = 10;          // Scores are capped here
+    private static final int PRIOR_GAMES = 5; // Average games every team is assumed to have played
+    private static final double PRIOR_AVERAGE = 1.35; // Goals per team per game before any are scored
+    private static final int LEAF = 1 << 16;  // Simulations per fork-join leaf
+    private static final int FIELD = 0xFFFF;  // Points, goal difference and goals each get 16 bits
+    private static final int MAX_TEAMS = 1 << 15;
+    private static final int BUCKET_BITS = 8;  // Score lookup table: 2^8 entries per side
+    private static final int SIDE = MAX_GOALS + 1;
+    private static final int SMALL_LEAGUE = 32; // Up to here, counting beats sorting the keys
+    // Points for a loss, draw and win, by the signum of the goal difference plus one
+    private static final int[] POINTS = {
+            LeagueTable.pointsFor(0, 1), LeagueTable.pointsFor(0, 0), LeagueTable.pointsFor(1, 0)};
+
+    /** One match still to play. Which side is named first does not matter. */
+    public static final class Fixture {
+        private final String teamA, teamB;
+
+        public Fixture(String teamA, String teamB) {
+            if (teamA.equals(teamB)) throw new IllegalArgumentException("A team cannot play itself: " + teamA);
+            this.teamA = teamA;
+            this.teamB = teamB;
+        }
+
+        public String getTeamA() { return teamA; }
+        public String getTeamB() { return teamB; }
+
+        @Override public String toString() { return teamA + ", " + teamB; }
+    }
+
+    /** How often each team finished in each position. */
+    public static final class Odds {
+        private final String[] teams;
+        private final long[] counts; // counts[team * n + position]
+        private final long simulations;
+
+        private Odds(String[] teams, long[] counts, long simulations) {
+            this.teams = teams;
+            this.counts = counts;
+            this.simulations = simulations;
+        }
+
+        public long getSimulations() { return simulations; }
+
+        /** Every team, by expected finishing position, best first. */
+        public List<String> teams() {
+            Integer[] order = new Integer[teams.length];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparingDouble(this::expected));
+            List<String> out = new ArrayList<>(order.length);
+            for (int i : order) out.add(teams[i]);
+            return out;
+        }
+
+        /** Chance of finishing in the position, numbered from 1. */
+        public double probability(String team, int position) {
+            int t = index(team);
+            if (position < 1 || position > teams.length) return 0;
+            return (double) counts[t * teams.length + position - 1] / simulations;
+        }
+
+        public double titleOdds(String team) { return probability(team, 1); }
+
+        /** Average finishing position. */
+        public double expectedPosition(String team) { return expected(index(team)); }
+
+        private double expected(int t) {
+            double sum = 0;
+            for (int p = 0; p < teams.length; p++) sum += (p + 1.0) * counts[t * teams.length + p];
+            return sum / simulations;
+        }
+
+        private int index(String team) {
+            for (int i = 0; i < teams.length; i++) {
+                if (teams[i].equals(team)) return i;
+            }
+            throw new IllegalArgumentException("Unknown team: " + team);
+        }
+
+        /** One row per team: expected position, then the chance of each position in percent. */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format("%-20s %6s", "Team", "Avg"));
+            for (int p = 1; p <= teams.length; p++) sb.append(String.format("%6d", p));
+            sb.append('\n');
+            for (String team : teams()) {
+                sb.append(String.format("%-20.20s %6.2f", team, expectedPosition(team)));
+                for (int p = 1; p <= teams.length; p++) sb.append(String.format("%6.1f", 100 * probability(team, p)));
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+    }
+
+    // Teams are numbered in name order, so a team's number is also its last tie-breaker
+    private final String[] teams;
+    private final int[] basePoints, baseGoalDifference, baseGoalsFor;
+    private final int[] fixtureA, fixtureB;
+    private final long[] cdf;    // Per fixture, per side: MAX_GOALS + 1 thresholds out of 2^32
+    private final byte[] lookup; // Per fixture, per side: goals at the start of each bucket of draws
+
+    /** Snapshots the table and works out scoring rates; later changes to the table are not seen. */
+    public SeasonSimulator(LeagueTable table, List<Fixture> remaining) {
+        SortedSet<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder()));
+        for (LeagueTable.Standing s : table.standings()) names.add(s.getName());
+        for (Fixture f : remaining) {
+            names.add(f.teamA);
+            names.add(f.teamB);
+        }
+        if (names.size() > MAX_TEAMS) throw new IllegalArgumentException("More than " + MAX_TEAMS + " teams");
+        teams = names.toArray(new String[0]);
+        int n = teams.length;
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) index.put(teams[i], i);
+
+        basePoints = new int[n];
+        baseGoalDifference = new int[n];
+        baseGoalsFor = new int[n];
+        double[] attack = new double[n], defence = new double[n];
+        long goals = 0, played = 0;
+        for (LeagueTable.Standing s : table.standings()) {
+            goals += s.getGoalsFor();
+            played += s.getPlayed();
+        }
+        // Goals per team per game. With no goals yet every rate below would be 0/0
+        double average = goals == 0 ? PRIOR_AVERAGE : (double) goals / played;
+        for (int i = 0; i < n; i++) {
+            LeagueTable.Standing s = table.get(teams[i]);
+            int p = s == null ? 0 : s.getPlayed();
+            int gf = s == null ? 0 : s.getGoalsFor(), ga = s == null ? 0 : s.getGoalsAgainst();
+            basePoints[i] = s == null ? 0 : s.getPoints();
+            baseGoalDifference[i] = gf - ga;
+            baseGoalsFor[i] = gf;
+            attack[i] = (gf + PRIOR_GAMES * average) / (p + PRIOR_GAMES) / average;
+            defence[i] = (ga + PRIOR_GAMES * average) / (p + PRIOR_GAMES) / average;
+        }
+
+        int m = remaining.size();
+        fixtureA = new int[m];
+        fixtureB = new int[m];
+        cdf = new long[2 * m * SIDE];
+        lookup = new byte[2 * m << BUCKET_BITS];
+        int[] games = new int[n];
+        for (int f = 0; f < m; f++) {
+            int a = index.get(remaining.get(f).teamA), b = index.get(remaining.get(f).teamB);
+            fixtureA[f] = a;
+            fixtureB[f] = b;
+            games[a]++;
+            games[b]++;
+            poisson(average * attack[a] * defence[b], 2 * f);
+            poisson(average * attack[b] * defence[a], 2 * f + 1);
+        }
+
+        // Every field must fit its 16 bits in the sort key, even if a team wins every game 10-0
+        for (int i = 0; i < n; i++) {
+            long most = (long) MAX_GOALS * games[i];
+            if (basePoints[i] + 3L * games[i] > FIELD || baseGoalsFor[i] + most > FIELD
+                    || Math.abs((long) baseGoalDifference[i]) + most > FIELD / 2) {
+                throw new IllegalArgumentException("Season too long to simulate: " + teams[i]);
+            }
+        }
+    }
+
+    /**
+     * Cumulative Poisson probabilities for 0..MAX_GOALS goals, as thresholds out of 2^32, and
+     * the lookup table that maps the top bits of a draw to the goals at the bucket's start.
+     */
+    private void poisson(double rate, int side) {
+        // A NaN or zero rate would make every threshold 0, and every score MAX_GOALS
+        if (!(rate > 0) || Double.isInfinite(rate)) throw new IllegalArgumentException("Scoring rate " + rate);
+        int at = side * SIDE;
+        double p = Math.exp(-rate), sum = 0;
+        for (int g = 0; g < MAX_GOALS; g++) {
+            sum += p;
+            cdf[at + g] = (long) Math.min(sum * 0x1p32, 0x1p32);
+            p *= rate / (g + 1);
+        }
+        cdf[at + MAX_GOALS] = 1L << 32; // Anything left is MAX_GOALS
+        int g = 0;
+        for (int bucket = 0; bucket < 1 << BUCKET_BITS; bucket++) {
+            long first = (long) bucket << (32 - BUCKET_BITS);
+            while (first >= cdf[at + g]) g++;
+            lookup[(side << BUCKET_BITS) + bucket] = (byte) g;
+        }
+    }
+
+    /** Reads fixtures, one per line: "Team A, Team B". Blank lines are skipped. */
+    public static List<Fixture> readFixtures(Path file) throws IOException {
+        List<Fixture> out = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            int comma = line.indexOf(',');
+            String a = comma < 0 ? "" : line.substring(0, comma).trim(), b = comma < 0 ? "" : line.substring(comma + 1).trim();
+            if (a.isEmpty() || b.isEmpty()) throw new IllegalArgumentException("Line " + lineNumber + ": Expected: Team1, Team2");
+            out.add(new Fixture(a, b));
+        }
+        return out;
+    }
+
+    public Odds run(long simulations, long seed) {
+        return run(simulations, seed, ForkJoinPool.commonPool());
+    }
+
+    /** Plays the rest of the season the given number of times on the pool. */
+    public Odds run(long simulations, long seed, ForkJoinPool pool) {
+        if (simulations < 1) throw new IllegalArgumentException("simulations must be at least 1");
+        long[] counts = pool.invoke(new Batch(simulations, new SplittableRandom(seed)));
+        return new Odds(teams.clone(), counts, simulations);
+    }
+
+    /** Some simulations; splits in two until small enough, each half with its own generator. */
+    private final class Batch extends RecursiveTask<long[]> {
+        private final long simulations;
+        private final SplittableRandom random;
+
+        Batch(long simulations, SplittableRandom random) {
+            this.simulations = simulations;
+            this.random = random;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (simulations <= LEAF) return simulate(simulations, random);
+            Batch right = new Batch(simulations / 2, random.split());
+            right.fork();
+            long[] counts = new Batch(simulations - simulations / 2, random).compute();
+            long[] other = right.join();
+            for (int i = 0; i < counts.length; i++) counts[i] += other[i];
+            return counts;
+        }
+    }
+
+    /** The inner loop. Allocates four arrays up front and nothing after. */
+    private long[] simulate(long simulations, SplittableRandom random) {
+        int n = teams.length, m = fixtureA.length;
+        long[] counts = new long[n * n];
+        int[] points = new int[n], goalDifference = new int[n], goalsFor = new int[n];
+        long[] keys = new long[n];
+        for (long s = 0; s < simulations; s++) {
+            System.arraycopy(basePoints, 0, points, 0, n);
+            System.arraycopy(baseGoalDifference, 0, goalDifference, 0, n);
+            System.arraycopy(baseGoalsFor, 0, goalsFor, 0, n);
+            for (int f = 0; f < m; f++) {
+                long bits = random.nextLong();
+                int goalsA = goals(bits >>> 32, 2 * f);
+                int goalsB = goals(bits & 0xFFFFFFFFL, 2 * f + 1);
+                int a = fixtureA[f], b = fixtureB[f];
+                int result = Integer.signum(goalsA - goalsB);
+                points[a] += POINTS[1 + result];
+                points[b] += POINTS[1 - result];
+                goalDifference[a] += goalsA - goalsB;
+                goalDifference[b] += goalsB - goalsA;
+                goalsFor[a] += goalsA;
+                goalsFor[b] += goalsB;
+            }
+            // Ascending keys are table order: more points, goal difference and goals sort first
+            for (int t = 0; t < n; t++) {
+                keys[t] = (long) (FIELD - points[t]) << 47
+                        | (long) (FIELD / 2 - goalDifference[t]) << 31
+                        | (long) (FIELD - goalsFor[t]) << 15
+                        | t;
+            }
+            if (n <= SMALL_LEAGUE) {
+                // A team's position is how many keys are below its own: n * n branch-free compares
+                for (int t = 0; t < n; t++) {
+                    long key = keys[t];
+                    int below = 0;
+                    for (int u = 0; u < n; u++) below += keys[u] < key ? 1 : 0;
+                    counts[t * n + below]++;
+                }
+            } else {
+                Arrays.sort(keys);
+                for (int p = 0; p < n; p++) counts[(int) (keys[p] & (MAX_TEAMS - 1)) * n + p]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Goals for a uniform 32-bit draw: the lookup table gives the goals at the start of the
+     * draw's bucket, and only a bucket with a threshold inside it needs a compare to move on.
+     */
+    private int goals(long draw, int side) {
+        int g = lookup[(side << BUCKET_BITS) + (int) (draw >>> (32 - BUCKET_BITS))];
+        int at = side * SIDE;
+        while (draw >= cdf[at + g]) g++;
+        return g;
+    }
+
+    /** Usage: java Soccer_App.SeasonSimulator results.txt fixtures.txt [simulations] [seed] */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: java Soccer_App.SeasonSimulator results.txt fixtures.txt [simulations] [seed]");
+            return;
+        }
+        long simulations = args.length >= 3 ? Long.parseLong(args[2]) : 1_000_000;
+        long seed = args.length >= 4 ? Long.parseLong(args[3]) : System.nanoTime();
+        try {
+            SoccerLeagueRanking league = new SoccerLeagueRanking();
+            league.processFile(args[0]);
+            SeasonSimulator sim = new SeasonSimulator(league.getLeague().snapshot(), readFixtures(Path.of(args[1])));
+            long t0 = System.nanoTime();
+            Odds odds = sim.run(simulations, seed);
+            System.out.printf("%,d simulations in %.2f s%n%n", simulations, (System.nanoTime() - t0) / 1e9);
+            System.out.print(odds);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+}
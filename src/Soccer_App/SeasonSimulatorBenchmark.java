@@ -0,0 +1,64 @@
+package Soccer_App;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Simulations per second for SeasonSimulator on a generated 20-team double round robin,
+ * part played, on 1, 2, 4... threads up to the number of cores. Also checks that every
+ * team's position chances add up to 1 and that a seed gives the same odds on any pool.
+ * Run with: java Soccer_App.SeasonSimulatorBenchmark [simulations] [roundsLeft]
+ */
+public class SeasonSimulatorBenchmark {
+    private static final int TEAMS = 20;
+
+    public static void main(String[] args) {
+        long simulations = args.length >= 1 ? Long.parseLong(args[0]) : 10_000_000;
+        int roundsLeft = args.length >= 2 ? Integer.parseInt(args[1]) : 10;
+
+        // Every pairing home and away: 38 rounds of 10 matches, by the circle method
+        List<SeasonSimulator.Fixture> season = new ArrayList<>();
+        int rounds = 2 * (TEAMS - 1);
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < TEAMS / 2; i++) {
+                int a = i == 0 ? 0 : 1 + (r + i - 1) % (TEAMS - 1);
+                int b = 1 + (r + TEAMS - 2 - i) % (TEAMS - 1);
+                season.add(r < TEAMS - 1 ? new SeasonSimulator.Fixture("Team" + a, "Team" + b)
+                        : new SeasonSimulator.Fixture("Team" + b, "Team" + a));
+            }
+        }
+        int playedMatches = (rounds - roundsLeft) * TEAMS / 2;
+        LeagueTable table = new LeagueTable();
+        Random rnd = new Random(42);
+        for (SeasonSimulator.Fixture f : season.subList(0, playedMatches)) {
+            table.recordMatch(f.getTeamA(), rnd.nextInt(4), f.getTeamB(), rnd.nextInt(3));
+        }
+        SeasonSimulator sim = new SeasonSimulator(table, season.subList(playedMatches, season.size()));
+        System.out.printf("%d teams, %d matches left, %,d simulations%n", TEAMS, season.size() - playedMatches, simulations);
+
+        sim.run(Math.min(simulations, 1_000_000), 1); // Warm-up
+        SeasonSimulator.Odds first = null;
+        for (int threads = 1; threads <= Math.max(4, Runtime.getRuntime().availableProcessors()); threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long t0 = System.nanoTime();
+                SeasonSimulator.Odds odds = sim.run(simulations, 7, pool);
+                double seconds = (System.nanoTime() - t0) / 1e9;
+                System.out.printf("%2d thread(s)  %6.2f s  %,14.0f simulations/s%n", threads, seconds, simulations / seconds);
+                if (first == null) first = odds;
+                else if (!first.toString().equals(odds.toString())) throw new IllegalStateException("Same seed, different odds");
+            } finally {
+                pool.shutdown();
+            }
+        }
+        for (String team : first.teams()) {
+            double sum = 0;
+            for (int p = 1; p <= TEAMS; p++) sum += first.probability(team, p);
+            if (Math.abs(sum - 1) > 1e-9) throw new IllegalStateException(team + " chances add up to " + sum);
+        }
+        System.out.println();
+        System.out.print(first);
+    }
+}
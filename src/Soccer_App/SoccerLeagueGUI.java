@@ -2,43 +2,45 @@ package Soccer_App;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import static javax.swing.JOptionPane.*;
 
 /**
  * Soccer League Ranking Calculator (GUI)
- * Paste or load match lines, process them, and view a ranked table.
+ * Paste or load match lines, process them, and view a ranked table, or follow a
+ * LeagueFeedServer live with "Connect to Feed".
  * Ranking uses "standard competition ranking": 1,2,3,3,3,6
- * Sort order inside a tie is alphabetical by team name.
+ * Ties on points go to goal difference, then goals scored; inside a full tie teams are
+ * listed alphabetically by name.
  *
  * Input line format:
  *   Team A 2, Team B 1
  */
 public class SoccerLeagueGUI extends JFrame {
 
-    /** Simple DTO for table rows. Comparable gives: points desc, then name asc (case-insensitive). */
-    static class Team implements Comparable<Team> {
-        final String name;
-        final int points;
-        Team(String n, int p) { name = n; points = p; }
-        @Override public int compareTo(Team o) {
-            if (points != o.points) return Integer.compare(o.points, points); // higher first
-            return String.CASE_INSENSITIVE_ORDER.compare(name, o.name);       // A..Z inside tie
-        }
-    }
-
     // --- State -----------------------------------------------------
-    private final Map<String, Integer> teamScores = new HashMap<>();
-    private final java.util.List<String> matchHistory = new ArrayList<>();
+    // Parsing, scoring and ranking are LeagueEngine's, shared with SoccerLeagueRanking.
+    // Replaced when a background run finishes, so only ever read or changed on the EDT.
+    private LeagueEngine league = new LeagueEngine();
+    private final HistoryModel historyModel = new HistoryModel();
+    private ProcessWorker processWorker; // Running, or null
+    // Live feed: the client's thread queues changes, the EDT applies them a batch at a time
+    private LeagueFeedClient feed;
+    private final Queue<Runnable> feedChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean feedDrainScheduled = new AtomicBoolean();
+    private static final int FEED_HISTORY = 200; // Live results kept in the history
 
     // --- UI --------------------------------------------------------
     private JTextArea matchInputArea;
     private JTable rankingTable;
-    private DefaultTableModel tableModel;
-    private JTextArea historyArea;
+    private final StandingsTableModel tableModel = new StandingsTableModel();
+    private JButton processButton;
+    private JProgressBar progressBar;
     private JLabel statusLabel;
 
     public SoccerLeagueGUI() {
@@ -83,16 +85,15 @@ public class SoccerLeagueGUI extends JFrame {
         JPanel p = new JPanel(new BorderLayout(5, 5));
         p.setBorder(new TitledBorder("League Rankings"));
 
-        tableModel = new DefaultTableModel(new String[]{"Rank", "Team Name", "Points"}, 0) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        };
         rankingTable = new JTable(tableModel);
         rankingTable.setFont(new Font("Arial", Font.PLAIN, 13));
         rankingTable.setRowHeight(25);
         rankingTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 13));
         rankingTable.getColumnModel().getColumn(0).setPreferredWidth(60);
         rankingTable.getColumnModel().getColumn(1).setPreferredWidth(220);
-        rankingTable.getColumnModel().getColumn(2).setPreferredWidth(80);
+        for (int c = 2; c <= 8; c++) rankingTable.getColumnModel().getColumn(c).setPreferredWidth(40); // P..GD
+        rankingTable.getColumnModel().getColumn(9).setPreferredWidth(80);
+        rankingTable.getColumnModel().getColumn(10).setPreferredWidth(80);
 
         p.add(new JScrollPane(rankingTable), BorderLayout.CENTER);
         return p;
@@ -103,23 +104,31 @@ public class SoccerLeagueGUI extends JFrame {
 
         // Buttons
         JPanel buttons = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
-        buttons.add(makeButton("Process Matches", 160, e -> processMatches()));
+        processButton = makeButton("Process Matches", 160, e -> processMatches());
+        buttons.add(processButton);
         buttons.add(makeButton("Clear All", 120, e -> clearAll()));
         buttons.add(makeButton("Load from File", 150, e -> loadFromFile()));
         buttons.add(makeButton("Load Sample", 140, e -> loadSampleData()));
+        buttons.add(makeButton("Connect to Feed", 160, e -> toggleFeed((JButton) e.getSource())));
 
         // History
         JPanel historyPanel = new JPanel(new BorderLayout(5,5));
         historyPanel.setBorder(new TitledBorder("Match History"));
-        historyArea = new JTextArea(6, 40);
-        historyArea.setEditable(false);
-        historyArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
-        historyPanel.add(new JScrollPane(historyArea), BorderLayout.CENTER);
+        // A list rather than a text area: with a fixed row height only the visible lines are drawn
+        JList<String> historyList = new JList<>(historyModel);
+        historyList.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+        historyList.setFixedCellHeight(15);
+        historyList.setVisibleRowCount(6);
+        historyPanel.add(new JScrollPane(historyList), BorderLayout.CENTER);
 
         // Status
         JPanel status = new JPanel(new FlowLayout(FlowLayout.LEFT));
         status.setBorder(BorderFactory.createEtchedBorder());
         statusLabel = new JLabel("Ready");
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        status.add(progressBar);
         status.add(statusLabel);
 
         root.add(buttons, BorderLayout.NORTH);
@@ -138,112 +147,151 @@ public class SoccerLeagueGUI extends JFrame {
 
     // === Actions ===================================================
 
-    /** Parse all lines, compute scores, then refresh the table and history. */
+    /**
+     * Parses every line on a background worker into a new table, which replaces the shown one
+     * when it finishes; while it runs the button cancels it and the window stays responsive.
+     */
     private void processMatches() {
-        String input = matchInputArea.getText().trim();
-        if (input.isEmpty()) {
-            showMessageDialog(this, "Please enter match results!", "No Input", WARNING_MESSAGE);
+        if (processWorker != null) {
+            processWorker.cancel(false);
             return;
         }
-
-        teamScores.clear();
-        matchHistory.clear();
-
-        int ok = 0, bad = 0;
-        for (String raw : input.split("\\R")) {
-            String line = raw.trim();
-            if (line.isEmpty()) continue;
-            try {
-                processMatch(line);
-                matchHistory.add(line);
-                ok++;
-            } catch (Exception ex) {
-                bad++;
-            }
+        if (feed != null) {
+            showMessageDialog(this, "Disconnect from the live feed first.", "Live Feed", WARNING_MESSAGE);
+            return;
         }
-
-        refreshRankingTable();
-        refreshHistory();
-        statusLabel.setText("Processed " + ok + " match(es). " + teamScores.size()
-                + " team(s). Errors: " + bad + ".");
-        if (bad > 0) {
-            showMessageDialog(this,
-                    "Some lines could not be parsed. Please check the format.",
-                    "Parse Warnings",
-                    INFORMATION_MESSAGE);
+        String input = matchInputArea.getText();
+        if (input.isBlank()) {
+            showMessageDialog(this, "Please enter match results!", "No Input", WARNING_MESSAGE);
+            return;
         }
-    }
 
-    /** Parse one line, update points according to win, draw, loss. */
-    private void processMatch(String matchLine) {
-        String[] sides = matchLine.split(",", 2);
-        if (sides.length != 2)
-            throw new IllegalArgumentException("Expected: Team1 Score, Team2 Score");
-
-        String[] a = parseTeamAndScore(sides[0].trim());
-        String[] b = parseTeamAndScore(sides[1].trim());
+        processWorker = new ProcessWorker(input);
+        processWorker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) progressBar.setValue((Integer) e.getNewValue());
+        });
+        processButton.setText("Cancel");
+        progressBar.setValue(0);
+        progressBar.setVisible(true);
+        statusLabel.setText("Processing...");
+        processWorker.execute();
+    }
 
-        String teamA = a[0]; int goalsA = Integer.parseInt(a[1]);
-        String teamB = b[0]; int goalsB = Integer.parseInt(b[1]);
+    /** Parses the text into a fresh table off the EDT. Bad lines are counted and skipped. */
+    private class ProcessWorker extends SwingWorker<LeagueEngine, Void> {
+        private final String input;
+        private final java.util.List<String> accepted = new ArrayList<>();
+        private int bad;
 
-        if (goalsA > goalsB) { addPoints(teamA, 3); addPoints(teamB, 0); }
-        else if (goalsB > goalsA) { addPoints(teamA, 0); addPoints(teamB, 3); }
-        else { addPoints(teamA, 1); addPoints(teamB, 1); }
-    }
+        ProcessWorker(String input) {
+            this.input = input;
+        }
 
-    /** Split "Team Name 4" into [name, "4"], validate score numeric. */
-    private String[] parseTeamAndScore(String chunk) {
-        int i = chunk.lastIndexOf(' ');
-        if (i <= 0 || i == chunk.length() - 1)
-            throw new IllegalArgumentException("Invalid: " + chunk);
-        String name = chunk.substring(0, i).trim();
-        String score = chunk.substring(i + 1).trim();
-        if (!score.chars().allMatch(Character::isDigit))
-            throw new IllegalArgumentException("Score is not a number: " + score);
-        return new String[]{name, score};
-    }
+        @Override
+        protected LeagueEngine doInBackground() {
+            LeagueEngine next = new LeagueEngine();
+            int length = input.length(), lines = 0;
+            for (int start = 0; start < length; ) {
+                int end = input.indexOf('\n', start);
+                if (end < 0) end = length;
+                String line = input.substring(start, end).trim();
+                start = end + 1;
+                if (!line.isEmpty()) {
+                    try {
+                        next.processLine(line);
+                        accepted.add(line);
+                    } catch (RuntimeException ex) {
+                        bad++;
+                    }
+                }
+                if ((++lines & 0xFFF) == 0) {
+                    if (isCancelled()) return null;
+                    setProgress((int) (100L * Math.min(start, length) / length));
+                }
+            }
+            return next;
+        }
 
-    private void addPoints(String team, int pts) {
-        teamScores.put(team, teamScores.getOrDefault(team, 0) + pts);
+        @Override
+        protected void done() {
+            processWorker = null;
+            processButton.setText("Process Matches");
+            progressBar.setVisible(false);
+            if (isCancelled()) {
+                statusLabel.setText("Processing cancelled. The table is unchanged.");
+                return;
+            }
+            try {
+                league = get();
+            } catch (InterruptedException | ExecutionException ex) {
+                showMessageDialog(SoccerLeagueGUI.this, "Processing failed: " + ex.getMessage(),
+                        "Processing Error", ERROR_MESSAGE);
+                return;
+            }
+            historyModel.replaceAll(accepted);
+            refreshRankingTable();
+            statusLabel.setText("Processed " + accepted.size() + " match(es). " + league.size()
+                    + " team(s). Errors: " + bad + ".");
+            if (bad > 0) {
+                showMessageDialog(SoccerLeagueGUI.this,
+                        "Some lines could not be parsed. Please check the format.",
+                        "Parse Warnings",
+                        INFORMATION_MESSAGE);
+            }
+        }
     }
 
-    /** Build rows and assign shared ranks 1,2,3,3,3,6. */
+    /** Shows the table with shared ranks 1,2,3,3,3,6; only rows that changed are repainted. */
     private void refreshRankingTable() {
-        tableModel.setRowCount(0);
+        tableModel.update(league);
+    }
 
-        java.util.List<Team> teams = new ArrayList<>();
-        for (Map.Entry<String,Integer> e : teamScores.entrySet()) {
-            teams.add(new Team(e.getKey(), e.getValue()));
+    /**
+     * Match history shown in place, numbered as it is drawn, so a season of lines is never
+     * copied into one big string. Call on the EDT.
+     */
+    private static final class HistoryModel extends AbstractListModel<String> {
+        private java.util.List<String> lines = new ArrayList<>();
+
+        @Override public int getSize() { return lines.size(); }
+        @Override public String getElementAt(int i) { return (i + 1) + ". " + lines.get(i); }
+
+        /** Shows a new list, which the caller no longer changes. */
+        void replaceAll(java.util.List<String> next) {
+            int oldSize = lines.size(), newSize = next.size();
+            lines = next;
+            int common = Math.min(oldSize, newSize);
+            if (common > 0) fireContentsChanged(this, 0, common - 1);
+            if (newSize > oldSize) fireIntervalAdded(this, oldSize, newSize - 1);
+            else if (newSize < oldSize) fireIntervalRemoved(this, newSize, oldSize - 1);
         }
-        Collections.sort(teams);
 
-        int lastPoints = Integer.MIN_VALUE;
-        int lastRank = 0;
-        int position = 0;
-
-        for (Team t : teams) {
-            position++;
-            if (t.points != lastPoints) {
-                lastPoints = t.points;
-                lastRank = position;
-            }
-            tableModel.addRow(new Object[]{lastRank, t.name, t.points + " pts"});
+        void add(String line) {
+            lines.add(line);
+            fireIntervalAdded(this, lines.size() - 1, lines.size() - 1);
         }
-    }
 
-    private void refreshHistory() {
-        historyArea.setText("");
-        for (int i = 0; i < matchHistory.size(); i++) {
-            historyArea.append((i + 1) + ". " + matchHistory.get(i) + "\n");
+        /** Drops the oldest line; every other line's number moves down one. */
+        void removeFirst() {
+            lines.remove(0);
+            fireIntervalRemoved(this, 0, 0);
+            if (!lines.isEmpty()) fireContentsChanged(this, 0, lines.size() - 1);
         }
+
+        int size() { return lines.size(); }
     }
 
     private void clearAll() {
+        // The feed would keep applying results to the table it mirrors
+        if (feed != null) {
+            showMessageDialog(this, "Disconnect from the live feed first.", "Live Feed", WARNING_MESSAGE);
+            return;
+        }
+        if (processWorker != null) processWorker.cancel(false);
         matchInputArea.setText("");
-        teamScores.clear();
-        matchHistory.clear();
-        tableModel.setRowCount(0);
-        historyArea.setText("");
+        league.clear();
+        historyModel.replaceAll(new ArrayList<>());
+        tableModel.clear();
         statusLabel.setText("Cleared all data.");
     }
 
@@ -266,6 +314,79 @@ public class SoccerLeagueGUI extends JFrame {
         }
     }
 
+    /**
+     * Subscribes to a LeagueFeedServer, or disconnects. While connected the table mirrors the
+     * server's: its snapshot replaces what is shown, then each result is applied as it arrives.
+     */
+    private void toggleFeed(JButton button) {
+        if (feed != null) {
+            try { feed.close(); } catch (IOException ignored) {}
+            return;
+        }
+        if (processWorker != null) {
+            showMessageDialog(this, "Wait for processing to finish, or cancel it.", "Live Feed", WARNING_MESSAGE);
+            return;
+        }
+        String address = showInputDialog(this, "Feed server (host:port):", "localhost:" + LeagueFeedServer.DEFAULT_PORT);
+        if (address == null || address.isBlank()) return;
+        int colon = address.lastIndexOf(':');
+        try {
+            String host = colon < 0 ? address.trim() : address.substring(0, colon).trim();
+            int port = colon < 0 ? LeagueFeedServer.DEFAULT_PORT : Integer.parseInt(address.substring(colon + 1).trim());
+            feed = LeagueFeedClient.subscribe(host, port, new LeagueFeedClient.Listener() {
+                @Override
+                public void snapshot(LeagueTable.Partial totals, long seq) {
+                    onEdt(() -> {
+                        league = new LeagueEngine();
+                        league.merge(totals);
+                        historyModel.replaceAll(new ArrayList<>());
+                        statusLabel.setText("Live feed: " + league.size() + " team(s) after " + seq + " result(s).");
+                    });
+                }
+
+                @Override
+                public void update(long seq, String tag, int rankA, int rankB, String teamA, int goalsA, String teamB, int goalsB) {
+                    onEdt(() -> {
+                        league.recordMatch(teamA, goalsA, teamB, goalsB);
+                        historyModel.add(teamA + " " + goalsA + ", " + teamB + " " + goalsB);
+                        if (historyModel.size() > FEED_HISTORY) historyModel.removeFirst();
+                        statusLabel.setText("Live feed: result " + seq + ", " + teamA + " now #" + rankA
+                                + ", " + teamB + " now #" + rankB + ".");
+                    });
+                }
+
+                @Override
+                public void closed(IOException error) {
+                    onEdt(() -> {
+                        feed = null;
+                        button.setText("Connect to Feed");
+                        statusLabel.setText(error == null ? "Disconnected from the live feed."
+                                : "Live feed lost: " + error.getMessage());
+                    });
+                }
+            });
+            button.setText("Disconnect Feed");
+        } catch (NumberFormatException | IOException ex) {
+            showMessageDialog(this, "Could not connect to " + address + ": " + ex.getMessage(),
+                    "Feed Error", ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Queues a change from the feed thread. One drain runs per burst, so a busy feed costs
+     * one table refresh per batch of results rather than one per result.
+     */
+    private void onEdt(Runnable change) {
+        feedChanges.add(change);
+        if (feedDrainScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                feedDrainScheduled.set(false);
+                for (Runnable r; (r = feedChanges.poll()) != null; ) r.run();
+                refreshRankingTable();
+            });
+        }
+    }
+
     private void loadSampleData() {
         String sample = """
                 Liverpool 3, ManchesterUnited 3
@@ -1,119 +1,51 @@
 package Soccer_App;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.*;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Reads match results from a text file and prints a league table.
- * Rules: win=3, draw=1, loss=0. Same points share the same rank.
- * Within a tie, teams are printed alphabetically (case-insensitive).
+ * Rules: win=3, draw=1, loss=0. Ties on points go to goal difference, then goals scored;
+ * teams level on all three share the same rank and are printed alphabetically (case-insensitive).
  *
  * Input line format:  TeamA <score>, TeamB <score>
  * Example:            Liverpool 3, ManchesterUnited 3
  */
 public class SoccerLeagueRanking {
 
-    /** Simple value object for display and sorting */
-    static class Team implements Comparable<Team> {
-        final String name;
-        final int points;
+    // Parsing, scoring and the ranked table are shared with the GUI
+    private final LeagueEngine league = new LeagueEngine();
 
-        Team(String name, int points) {
-            this.name = name;
-            this.points = points;
-        }
-
-        /** Sort: points desc, then name asc, case-insensitive */
-        @Override
-        public int compareTo(Team other) {
-            if (points != other.points) return Integer.compare(other.points, points);
-            return String.CASE_INSENSITIVE_ORDER.compare(name, other.name);
-        }
-
-        @Override public String toString() { return name + ", " + points + " pts"; }
-    }
-
-    // Core storage the rubric asks for
-    private final Map<String, Integer> teamScores = new HashMap<>();
-
-    /** Public so GUI or tests can reuse the exact parsing and points logic */
+    /** One match line; throws IllegalArgumentException saying what is wrong with a bad one */
     public void processMatch(String line) {
-        // Split the two “sides” around the first comma
-        String[] sides = line.split(",", 2);
-        if (sides.length != 2) throw new IllegalArgumentException("Invalid match: " + line);
-
-        String[] a = parseTeamAndScore(sides[0].trim()); // [name, score]
-        String[] b = parseTeamAndScore(sides[1].trim());
-
-        String teamA = a[0]; int goalsA = Integer.parseInt(a[1]);
-        String teamB = b[0]; int goalsB = Integer.parseInt(b[1]);
-
-        // Award points
-        if (goalsA > goalsB) {
-            addPoints(teamA, 3); addPoints(teamB, 0);
-        } else if (goalsB > goalsA) {
-            addPoints(teamA, 0); addPoints(teamB, 3);
-        } else {
-            addPoints(teamA, 1); addPoints(teamB, 1);
-        }
-    }
-
-    /** Split "Team Name 4" into ["Team Name", "4"] with basic validation */
-    private String[] parseTeamAndScore(String chunk) {
-        int i = chunk.lastIndexOf(' ');
-        if (i <= 0 || i == chunk.length() - 1)
-            throw new IllegalArgumentException("Invalid team+score: " + chunk);
-        String name = chunk.substring(0, i).trim();
-        String score = chunk.substring(i + 1).trim();
-        // Lightweight digit check to catch “FC  A” style mistakes
-        if (!score.chars().allMatch(Character::isDigit))
-            throw new IllegalArgumentException("Score is not a number: " + score);
-        return new String[]{name, score};
+        league.processLine(line);
     }
 
-    private void addPoints(String team, int pts) {
-        teamScores.put(team, teamScores.getOrDefault(team, 0) + pts);
+    /**
+     * Same as processFile, but parses chunks of the file in parallel on the pool and merges
+     * their partial tables. The resulting table is identical.
+     */
+    public void processFileParallel(String filePath, ForkJoinPool pool) throws IOException {
+        league.processFileParallel(Path.of(filePath), pool);
     }
 
-    /** Build a sorted list of teams for printing or GUI use */
-    public List<Team> buildSortedTable() {
-        List<Team> out = new ArrayList<>();
-        for (Map.Entry<String, Integer> e : teamScores.entrySet()) {
-            out.add(new Team(e.getKey(), e.getValue()));
-        }
-        Collections.sort(out);
-        return out;
-    }
+    /** The engine holding the standings, always sorted */
+    public LeagueEngine getLeague() { return league; }
 
-    /** Print with shared ranks: 1,2,3,3,3,6 */
+    /** Print with shared ranks: 1,2,3,3,3,6, and each team's record and form */
     public void printRankings() {
-        List<Team> teams = buildSortedTable();
-
-        int lastPoints = Integer.MIN_VALUE;
-        int lastRank = 0;           // the rank number we print
-        int position = 0;           // 1-based position in the sorted list
-
         System.out.println("Rankings from file:");
-        for (Team t : teams) {
-            position++;
-            if (t.points != lastPoints) {
-                lastPoints = t.points;
-                lastRank = position;
-            }
-            System.out.println(lastRank + ". " + t);
-        }
+        league.forEachRanked((rank, t) -> System.out.println(rank + ". " + t + "  (" + t.summary() + ")"));
     }
 
-    /** Read line-by-line from a file, skipping blanks */
+    /**
+     * Read every match from a file, skipping blanks. Uses the byte-level MatchParser, so even
+     * multi-GB archives stream through without a String per line.
+     * A bad line stops processing with an IllegalArgumentException naming the line.
+     */
     public void processFile(String filePath) throws IOException {
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            for (String line; (line = br.readLine()) != null; ) {
-                line = line.trim();
-                if (!line.isEmpty()) processMatch(line);
-            }
-        }
+        league.processFile(Path.of(filePath));
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,120 @@
+package Soccer_App;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only TableModel showing a LeagueEngine's table with shared ranks.
+ *
+ * Each team's cells are formatted once and kept with the counts they came from; update walks
+ * the table and re-formats only the teams whose counts moved since, so a result costs two
+ * formatted rows, not one per team. It then compares the rows with the ones shown and fires
+ * events only for the runs of rows that changed, plus one insert or delete at the end if the
+ * number of teams changed. A result usually moves two teams and shifts the few between them,
+ * so the JTable repaints those rows instead of dropping and re-adding the whole table.
+ * Call everything on the EDT.
+ */
+public class StandingsTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {
+            "Rank", "Team Name", "P", "W", "D", "L", "GF", "GA", "GD", "Points", "Form"};
+
+    /** One team's cells after the rank, and the counts they were formatted from. */
+    private static final class Row {
+        final int won, drawn, lost, goalsFor, goalsAgainst;
+        final Object[] cells;
+
+        Row(LeagueTable.Standing t) {
+            won = t.getWon();
+            drawn = t.getDrawn();
+            lost = t.getLost();
+            goalsFor = t.getGoalsFor();
+            goalsAgainst = t.getGoalsAgainst();
+            cells = new Object[]{t.getName(), t.getPlayed(), won, drawn, lost, goalsFor, goalsAgainst,
+                    String.format("%+d", t.getGoalDifference()), t.getPoints() + " pts", t.getForm()};
+        }
+
+        /** True if these cells still show the team. Form only changes along with a count. */
+        boolean shows(LeagueTable.Standing t) {
+            return t.getWon() == won && t.getDrawn() == drawn && t.getLost() == lost
+                    && t.getGoalsFor() == goalsFor && t.getGoalsAgainst() == goalsAgainst;
+        }
+    }
+
+    private int[] ranks = new int[0];
+    private Row[] rows = new Row[0];
+    private final Map<String, Row> byTeam = new HashMap<>(); // Latest Row made for each team
+
+    @Override public int getRowCount() { return rows.length; }
+    @Override public int getColumnCount() { return COLUMNS.length; }
+    @Override public String getColumnName(int column) { return COLUMNS[column]; }
+    @Override public Object getValueAt(int row, int column) {
+        return column == 0 ? ranks[row] : rows[row].cells[column - 1];
+    }
+
+    /** Shows the table as it is now, firing events only for rows that differ from what was shown. */
+    public void update(LeagueEngine league) {
+        Collector next = new Collector(Math.max(16, rows.length));
+        league.forEachRanked(next);
+        int[] oldRanks = ranks;
+        Row[] old = rows;
+        ranks = Arrays.copyOf(next.ranks, next.size);
+        rows = Arrays.copyOf(next.rows, next.size);
+        if (byTeam.size() > rows.length) {
+            // Teams have gone, e.g. the feed replaced the table; forget their rows
+            byTeam.clear();
+            for (Row r : rows) byTeam.put((String) r.cells[0], r);
+        }
+
+        int common = Math.min(old.length, rows.length);
+        for (int i = 0; i < common; i++) {
+            if (same(oldRanks, old, i)) continue;
+            int start = i;
+            while (i + 1 < common && !same(oldRanks, old, i + 1)) i++;
+            fireTableRowsUpdated(start, i);
+        }
+        if (rows.length > old.length) fireTableRowsInserted(old.length, rows.length - 1);
+        else if (rows.length < old.length) fireTableRowsDeleted(rows.length, old.length - 1);
+    }
+
+    private boolean same(int[] oldRanks, Row[] old, int i) {
+        return oldRanks[i] == ranks[i] && old[i] == rows[i];
+    }
+
+    /** Gathers the ranked rows, reusing each team's Row while its counts have not moved. */
+    private final class Collector implements LeagueTable.RankedRow {
+        int[] ranks;
+        Row[] rows;
+        int size;
+
+        Collector(int capacity) {
+            ranks = new int[capacity];
+            rows = new Row[capacity];
+        }
+
+        @Override
+        public void accept(int rank, LeagueTable.Standing t) {
+            Row r = byTeam.get(t.getName());
+            if (r == null || !r.shows(t)) {
+                r = new Row(t);
+                byTeam.put(t.getName(), r);
+            }
+            if (size == rows.length) {
+                ranks = Arrays.copyOf(ranks, 2 * size);
+                rows = Arrays.copyOf(rows, 2 * size);
+            }
+            ranks[size] = rank;
+            rows[size++] = r;
+        }
+    }
+
+    /** Removes every row. */
+    public void clear() {
+        int old = rows.length;
+        ranks = new int[0];
+        rows = new Row[0];
+        byTeam.clear();
+        if (old > 0) fireTableRowsDeleted(0, old - 1);
+    }
+}